@@ -0,0 +1,110 @@
+package com.sujon.spring_data_analysis_api.repository;
+
+import com.sujon.spring_data_analysis_api.DataAnalysisApplication;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a stored analysis as entities, the parent with its EAGER column
+ * statistics mapped to records afterwards, with the single projection query
+ * {@link DataAnalysisRepository#findColumnRowsById} that builds the rows directly.
+ * The response cache is bypassed, so both paths go to the database every time.
+ * <p>
+ * Run with {@code ./gradlew jmh}. The application is started without a web server
+ * against its in-memory H2 database, with one analysis of {@code columns} columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalysisReadPathBenchmark {
+
+    @Param({"5", "50"})
+    private int columns;
+
+    private ConfigurableApplicationContext context;
+    private DataAnalysisRepository repository;
+    private Long id;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:read-path-benchmark", "logging.level.root=warn")
+                .run();
+        repository = context.getBean(DataAnalysisRepository.class);
+
+        StringBuilder csv = new StringBuilder();
+        for (int c = 0; c < columns; c++) {
+            csv.append(c == 0 ? "" : ",").append("column").append(c);
+        }
+        csv.append('\n');
+        for (int row = 0; row < 100; row++) {
+            for (int c = 0; c < columns; c++) {
+                csv.append(c == 0 ? "" : ",").append(row * 31 + c);
+            }
+            csv.append('\n');
+        }
+        id = context.getBean(DataAnalysisService.class)
+                .analyzeCsvData(csv.toString(), AnalysisOptions.of("exact", 0.01))
+                .id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ColumnStatistics> entities() {
+        DataAnalysisEntity entity = repository.findById(id).orElseThrow();
+        return entity.getColumnStatistics().stream()
+                .map(s -> new ColumnStatistics(
+                        s.getColumnName(),
+                        s.getNullCount(),
+                        s.getUniqueCount(),
+                        s.getUniqueCountMode(),
+                        s.isNumeric(),
+                        s.getMinValue(),
+                        s.getMaxValue(),
+                        s.getMeanValue(),
+                        s.getMedianValue(),
+                        s.getStandardDeviation(),
+                        s.getSkewness(),
+                        s.getKurtosis(),
+                        s.isNumeric() ? Arrays.asList(
+                                s.getPercentile25(),
+                                s.getPercentile50(),
+                                s.getPercentile75(),
+                                s.getPercentile90(),
+                                s.getPercentile95(),
+                                s.getPercentile99()
+                        ) : null
+                ))
+                .toList();
+    }
+
+    @Benchmark
+    public List<ColumnStatistics> projection() {
+        return repository.findColumnRowsById(id).stream()
+                .map(AnalysisColumnRow::toColumnStatistics)
+                .toList();
+    }
+}
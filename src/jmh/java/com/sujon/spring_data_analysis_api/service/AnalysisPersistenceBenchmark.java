@@ -0,0 +1,94 @@
+package com.sujon.spring_data_analysis_api.service;
+
+import com.sujon.spring_data_analysis_api.DataAnalysisApplication;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ingesting a wide CSV, whose cost past parsing is dominated by inserting one
+ * column statistics row per column, with every insert sent on its own
+ * ({@code batchSize} 1) and with the inserts of an analysis sent in JDBC batches.
+ * <p>
+ * Run with {@code ./gradlew jmh}. The application is started without a web server
+ * against its in-memory H2 database, which has no network round trip per statement,
+ * so the gain against a database server is larger than measured here. Each invocation
+ * changes the last cell so the upload is never answered as a duplicate, and the tables
+ * are emptied after every iteration so they do not grow across the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnalysisPersistenceBenchmark {
+
+    @Param({"1", "500"})
+    private int batchSize;
+
+    @Param({"500"})
+    private int columns;
+
+    private ConfigurableApplicationContext context;
+    private DataAnalysisService service;
+    private String csv;
+    private long invocation;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:persistence-benchmark",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "logging.level.root=warn")
+                .run();
+        service = context.getBean(DataAnalysisService.class);
+
+        StringBuilder data = new StringBuilder();
+        for (int c = 0; c < columns; c++) {
+            data.append(c == 0 ? "" : ",").append("column").append(c);
+        }
+        for (int row = 0; row < 10; row++) {
+            data.append('\n');
+            for (int c = 0; c < columns; c++) {
+                data.append(c == 0 ? "" : ",").append(row * 31 + c);
+            }
+        }
+        // Without the last cell, which each invocation fills in
+        csv = data.substring(0, data.lastIndexOf(",") + 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from column_statistics");
+        jdbcTemplate.update("delete from original_data");
+        jdbcTemplate.update("delete from data_analysis");
+        context.getBean(ContentHashIndex.class).clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DataAnalysisResponse ingest() {
+        return service.analyzeCsvData(csv + invocation++, AnalysisOptions.of("exact", 0.01));
+    }
+}
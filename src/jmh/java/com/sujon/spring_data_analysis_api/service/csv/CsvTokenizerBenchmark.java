@@ -0,0 +1,86 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CsvTokenizer} with naive line and comma splitting on a CSV
+ * without quotes, and measures the tokenizer on the same data with every
+ * other column quoted and holding escaped quotes, which splitting cannot parse.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvTokenizerBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int COLUMNS = 8;
+
+    @Param({"unquoted", "quoted"})
+    private String content;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        boolean quoted = content.equals("quoted");
+        StringBuilder builder = new StringBuilder();
+        for (int r = 0; r <= ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                if (c > 0) {
+                    builder.append(',');
+                }
+                String value = r == 0 ? "col" + c : c % 2 == 0
+                        ? Integer.toString(random.nextInt(1_000_000))
+                        : "name " + random.nextInt(1000);
+                if (quoted && c % 2 == 1) {
+                    builder.append('"').append(value).append(" \"\"x\"\", y").append('"');
+                } else {
+                    builder.append(value);
+                }
+            }
+            builder.append('\n');
+        }
+        csv = builder.toString();
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) throws IOException {
+        new CsvTokenizer(new StringReader(csv)).tokenize(new CsvRecordHandler() {
+            @Override
+            public boolean startRecord(long lineIndex, int cellCount, boolean blank) {
+                return true;
+            }
+
+            @Override
+            public void cell(int column, char[] buffer, int start, int end) {
+                blackhole.consume(end - start);
+            }
+        });
+    }
+
+    // The split-based parsing the tokenizer replaced, only meaningful without quotes
+    @Benchmark
+    public void naiveSplit(Blackhole blackhole) {
+        for (String line : csv.split("\\R", -1)) {
+            for (String cell : line.split(",", -1)) {
+                blackhole.consume(cell.length());
+            }
+        }
+    }
+}
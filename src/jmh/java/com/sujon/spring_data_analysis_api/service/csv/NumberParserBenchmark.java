@@ -0,0 +1,94 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link NumberParser} with the previous exception-based
+ * {@code tryParseDouble} on numeric, text and mixed columns.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NumberParserBenchmark {
+
+    private static final int CELLS = 10_000;
+
+    @Param({"numeric", "text", "mixed"})
+    private String column;
+
+    private String[] values;
+    private char[] buffer;
+    private int[] starts;
+    private int[] ends;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new String[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            boolean text = switch (column) {
+                case "text" -> true;
+                case "mixed" -> random.nextBoolean();
+                default -> false;
+            };
+            if (text) {
+                values[i] = "driver-" + random.nextInt(1000);
+            } else if (random.nextBoolean()) {
+                values[i] = Integer.toString(random.nextInt(1_000_000));
+            } else {
+                values[i] = String.format(Locale.ROOT, "%.2f", random.nextDouble() * 1000);
+            }
+        }
+
+        StringBuilder joined = new StringBuilder();
+        starts = new int[CELLS];
+        ends = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            starts[i] = joined.length();
+            joined.append(values[i]);
+            ends[i] = joined.length();
+            joined.append(',');
+        }
+        buffer = joined.toString().toCharArray();
+    }
+
+    @Benchmark
+    public void exceptionBased(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(tryParseDouble(value));
+        }
+    }
+
+    @Benchmark
+    public void numberParser(Blackhole blackhole) {
+        for (int i = 0; i < CELLS; i++) {
+            blackhole.consume(NumberParser.parse(buffer, starts[i], ends[i]));
+        }
+    }
+
+    // The implementation NumberParser replaced
+    private static Double tryParseDouble(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
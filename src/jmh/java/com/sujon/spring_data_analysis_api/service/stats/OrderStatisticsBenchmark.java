@@ -0,0 +1,79 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares placing the min, max, median and percentile ranks with
+ * {@link OrderStatistics#select} against sorting the whole column.
+ * Both variants work on a fresh copy since both reorder the array.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderStatisticsBenchmark {
+
+    private static final double[] PERCENTILES = {25, 50, 75, 90, 95, 99};
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"uniform", "lowCardinality"})
+    private String distribution;
+
+    private double[] column;
+    private int[] ranks;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        column = new double[size];
+        for (int i = 0; i < size; i++) {
+            column[i] = distribution.equals("uniform") ? random.nextDouble() * 1000 : random.nextInt(20);
+        }
+
+        ranks = new int[4 + 2 * PERCENTILES.length];
+        ranks[1] = size - 1;
+        ranks[2] = (size - 1) / 2;
+        ranks[3] = size / 2;
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double index = (PERCENTILES[i] / 100.0) * (size - 1);
+            ranks[4 + 2 * i] = (int) Math.floor(index);
+            ranks[5 + 2 * i] = (int) Math.ceil(index);
+        }
+    }
+
+    @Benchmark
+    public double fullSort() {
+        double[] values = column.clone();
+        Arrays.sort(values);
+        return readRanks(values);
+    }
+
+    @Benchmark
+    public double selection() {
+        double[] values = column.clone();
+        OrderStatistics.select(values, values.length, ranks);
+        return readRanks(values);
+    }
+
+    private double readRanks(double[] values) {
+        double sum = 0;
+        for (int rank : ranks) {
+            sum += values[rank];
+        }
+        return sum;
+    }
+}
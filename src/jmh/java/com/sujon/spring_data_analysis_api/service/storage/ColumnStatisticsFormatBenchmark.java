@@ -0,0 +1,92 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+import com.sujon.spring_data_analysis_api.DataAnalysisApplication;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares storing and reading the column statistics of a wide CSV as one
+ * {@code column_statistics} row per column and as one {@link ColumnStatisticsCodec}
+ * blob on the analysis row.
+ * <p>
+ * Run with {@code ./gradlew jmh}. The application is started without a web server
+ * against its in-memory H2 database and with the response cache disabled, so every
+ * read goes to the database. Each write changes the last cell so the upload is never
+ * answered as a duplicate; its time includes parsing and statistics, which are the
+ * same in both formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnStatisticsFormatBenchmark {
+
+    @Param({"rows", "blob"})
+    private String format;
+
+    @Param({"100", "2000"})
+    private int columns;
+
+    private ConfigurableApplicationContext context;
+    private DataAnalysisService service;
+    private String csv;
+    private long invocation;
+    private Long id;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:column-format-benchmark",
+                        "analysis.storage.column-statistics=" + format,
+                        "analysis.response-cache.max-weight=0B",
+                        "logging.level.root=warn")
+                .run();
+        service = context.getBean(DataAnalysisService.class);
+
+        StringBuilder data = new StringBuilder();
+        for (int c = 0; c < columns; c++) {
+            data.append(c == 0 ? "" : ",").append("column").append(c);
+        }
+        for (int row = 0; row < 10; row++) {
+            data.append('\n');
+            for (int c = 0; c < columns; c++) {
+                // Every other column is text, which has no numeric statistics
+                data.append(c == 0 ? "" : ",").append(c % 2 == 0 ? "value" + row : String.valueOf(row * 31 + c));
+            }
+        }
+        // Without the last cell, which each write fills in
+        csv = data.substring(0, data.lastIndexOf(",") + 1);
+        id = write().id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DataAnalysisResponse write() {
+        return service.analyzeCsvData(csv + invocation++, AnalysisOptions.of("exact", 0.01));
+    }
+
+    @Benchmark
+    public DataAnalysisResponse read() {
+        return service.getAnalysisById(id);
+    }
+}
@@ -2,11 +2,13 @@ package com.sujon.spring_data_analysis_api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Application entry point
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class DataAnalysisApplication {
 
     public static void main(String[] args) {
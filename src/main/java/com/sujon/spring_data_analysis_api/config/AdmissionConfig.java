@@ -0,0 +1,27 @@
+package com.sujon.spring_data_analysis_api.config;
+
+import com.sujon.spring_data_analysis_api.controller.AdmissionInterceptor;
+import com.sujon.spring_data_analysis_api.service.admission.IngestAdmission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the synchronous analysis endpoints behind admission control. Jobs are left out
+ * since the job service bounds its own queue before reading a body.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final IngestAdmission ingestAdmission;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(ingestAdmission, true))
+                .addPathPatterns("/api/analysis/ingestCsv");
+        registry.addInterceptor(new AdmissionInterceptor(ingestAdmission, false))
+                .addPathPatterns("/api/analysis/ingestCsv/stream", "/api/analysis/ingestCsv/file", "/api/analysis/import");
+    }
+}
@@ -0,0 +1,65 @@
+package com.sujon.spring_data_analysis_api.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated fork-join pool for CPU-heavy analysis work, kept apart from the common
+ * pool and the servlet threads, and the workers that run asynchronous analysis jobs.
+ */
+@Configuration
+public class AnalysisPoolConfig {
+
+    /**
+     * Creates the analysis pool. The pool never grows past its configured size: tasks
+     * blocked in a join keep their thread rather than having a compensating one started.
+     * @param properties the analysis settings
+     * @return the pool, shut down with the application context
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool analysisPool(AnalysisProperties properties) {
+        int threads = Math.max(1, properties.getParallel().getThreads());
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ForkJoinPool(
+                threads,
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("analysis-" + threadNumber.incrementAndGet());
+                    return thread;
+                },
+                null,
+                false,
+                0,
+                threads,
+                1,
+                pool -> true,
+                60,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates the executor for asynchronous analysis jobs. Its queue is unbounded since
+     * the job service admits no more jobs than there are threads and queue slots.
+     * @param properties the analysis settings
+     * @return the executor, shut down with the application context
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor analysisJobExecutor(AnalysisProperties properties) {
+        int threads = Math.max(1, properties.getJobs().getThreads());
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "analysis-job-" + threadNumber.incrementAndGet()));
+    }
+}
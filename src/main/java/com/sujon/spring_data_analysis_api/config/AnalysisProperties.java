@@ -0,0 +1,194 @@
+package com.sujon.spring_data_analysis_api.config;
+
+import com.sujon.spring_data_analysis_api.service.stats.HyperLogLog;
+import com.sujon.spring_data_analysis_api.service.storage.ColumnStatisticsFormat;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunables for CSV analysis, bound from the {@code analysis.*} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "analysis")
+public class AnalysisProperties {
+
+    private final UniqueCount uniqueCount = new UniqueCount();
+    private final Parallel parallel = new Parallel();
+    private final Parser parser = new Parser();
+    private final Dedup dedup = new Dedup();
+    private final FileIngest fileIngest = new FileIngest();
+    private final Jobs jobs = new Jobs();
+    private final Admission admission = new Admission();
+    private final ResponseCache responseCache = new ResponseCache();
+    private final DownloadCache downloadCache = new DownloadCache();
+    private final Storage storage = new Storage();
+
+    // Phrases an uploaded CSV must not contain anywhere, matched exactly and case-sensitively
+    private List<String> blockedContent = new ArrayList<>(List.of("Sonny Hayes"));
+
+    /**
+     * Settings for the distinct-value count of each column.
+     */
+    @Getter
+    @Setter
+    public static class UniqueCount {
+
+        // Distinct values kept exactly per column before switching to an estimate
+        private int exactLimit = 100_000;
+
+        // HyperLogLog precision, 2^precision registers, between 4 and 18
+        private int precision = 14;
+
+        public void setPrecision(int precision) {
+            if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+                throw new IllegalArgumentException("analysis.unique-count.precision must be between 4 and 18");
+            }
+            this.precision = precision;
+        }
+    }
+
+    /**
+     * Settings for the worker pool that spreads CPU-heavy analysis work across cores.
+     */
+    @Getter
+    @Setter
+    public static class Parallel {
+
+        // Worker threads in the analysis pool
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        // Numeric values across all columns below which statistics stay on the request thread
+        private long statisticsThreshold = 100_000;
+
+        // Characters below which an in-memory CSV is parsed on the request thread
+        private int parseThreshold = 1_000_000;
+    }
+
+    /**
+     * Settings for the CSV tokenizer.
+     */
+    @Getter
+    @Setter
+    public static class Parser {
+
+        // Skip ordinary characters with the jdk.incubator.vector API; needs --add-modules jdk.incubator.vector
+        // and falls back to the scalar tokenizer without it
+        private boolean vectorized = false;
+    }
+
+    /**
+     * Settings for the in-process index of stored content hashes.
+     */
+    @Getter
+    @Setter
+    public static class Dedup {
+
+        // Responses of recently stored or matched analyses kept in memory
+        private int cacheSize = 1_000;
+
+        // Stored hashes the Bloom filter is sized for before it is rebuilt larger
+        private long expectedHashes = 1_000_000;
+
+        // Share of unknown hashes the Bloom filter lets through to a database lookup
+        private double falsePositiveRate = 0.01;
+    }
+
+    /**
+     * Settings for analyzing uploads and server-side files from disk.
+     */
+    @Getter
+    @Setter
+    public static class FileIngest {
+
+        // Where uploads are spooled before being mapped, in a locked subdirectory per instance,
+        // so the directory can be shared by instances
+        private Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "spring-data-analysis-api");
+
+        // Largest body spooled to disk; longer uploads are rejected with 413 and their file deleted
+        private DataSize maxSpoolSize = DataSize.ofGigabytes(1);
+
+        // Directory whose files can be analyzed in place by name, unset to disable imports
+        private Path importDirectory;
+    }
+
+    /**
+     * Settings for asynchronous analysis jobs.
+     */
+    @Getter
+    @Setter
+    public static class Jobs {
+
+        // Jobs analyzed at the same time
+        private int threads = 2;
+
+        // Jobs waiting for a worker before new ones are rejected with 429
+        private int queueCapacity = 16;
+
+        // How long a finished job can still be looked up
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    /**
+     * Settings for admitting analysis requests before their body is read.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+
+        // Analyses run at the same time across the synchronous endpoints
+        private int maxConcurrentAnalyses = 2 * Runtime.getRuntime().availableProcessors();
+
+        // Request bodies held in memory by running analyses, counted by Content-Length
+        private DataSize maxInFlightBytes = DataSize.ofMegabytes(64);
+
+        // Sent as Retry-After when a request is rejected with 429
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Settings for the cache of stored analyses answered by id.
+     */
+    @Getter
+    @Setter
+    public static class ResponseCache {
+
+        // Estimated heap the cached responses may take before the least recently used are evicted
+        private DataSize maxWeight = DataSize.ofMegabytes(32);
+    }
+
+    /**
+     * Settings for the cache of serialized analyses served as downloads.
+     */
+    @Getter
+    @Setter
+    public static class DownloadCache {
+
+        // Bytes of JSON and gzip documents kept before the least recently used are evicted
+        private DataSize maxWeight = DataSize.ofMegabytes(32);
+    }
+
+    /**
+     * Settings for how analyses are stored.
+     */
+    @Getter
+    @Setter
+    public static class Storage {
+
+        // Column statistics of new analyses as one row per column, or as one blob on the analysis row
+        private ColumnStatisticsFormat columnStatistics = ColumnStatisticsFormat.ROWS;
+
+        // Rewrite analyses stored as rows into blobs at startup
+        private boolean migrateRows = false;
+
+        // Analyses rewritten per transaction by the migration
+        private int migrationBatchSize = 100;
+    }
+}
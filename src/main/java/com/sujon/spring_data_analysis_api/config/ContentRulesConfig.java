@@ -0,0 +1,22 @@
+package com.sujon.spring_data_analysis_api.config;
+
+import com.sujon.spring_data_analysis_api.service.csv.PhraseMatcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Compiles the content rules uploads are checked against.
+ */
+@Configuration
+public class ContentRulesConfig {
+
+    /**
+     * Builds the automaton for the configured blocked phrases once, to be shared by every upload.
+     * @param properties the analysis settings
+     * @return the matcher for {@code analysis.blocked-content}
+     */
+    @Bean
+    public PhraseMatcher blockedContent(AnalysisProperties properties) {
+        return new PhraseMatcher(properties.getBlockedContent());
+    }
+}
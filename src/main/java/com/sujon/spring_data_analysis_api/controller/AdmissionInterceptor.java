@@ -0,0 +1,61 @@
+package com.sujon.spring_data_analysis_api.controller;
+
+import com.sujon.spring_data_analysis_api.exception.LengthRequiredException;
+import com.sujon.spring_data_analysis_api.exception.PayloadTooLargeException;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import com.sujon.spring_data_analysis_api.service.admission.IngestAdmission;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits analysis requests through {@link IngestAdmission} before their body is read,
+ * which for {@code @RequestBody} arguments happens before the controller is called.
+ * <p>
+ * Uploads to the in-memory endpoint are sized by their Content-Length: one over the
+ * 5MB limit is rejected with 413 unread, and one without a Content-Length with 411.
+ * Streamed, spooled and imported files are never held in memory as a whole, so they
+ * only take an analysis slot.
+ */
+@RequiredArgsConstructor
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final IngestAdmission ingestAdmission;
+
+    // Whether the body is read into memory as a whole
+    private final boolean inMemory;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // CORS preflights and other non-controller handlers carry no upload
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        long bodyBytes = 0;
+        if (inMemory) {
+            bodyBytes = request.getContentLengthLong();
+            if (bodyBytes < 0) {
+                throw new LengthRequiredException(
+                        "Content-Length is required, use /api/analysis/ingestCsv/stream for uploads of unknown length");
+            }
+            if (bodyBytes > DataAnalysisService.MAX_FILE_SIZE_BYTES) {
+                throw new PayloadTooLargeException("File size exceeds maximum allowed size of 5MB");
+            }
+        }
+        request.setAttribute(PERMIT, ingestAdmission.admit(bodyBytes));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof IngestAdmission.Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sujon.spring_data_analysis_api.controller;
+
+import com.sujon.spring_data_analysis_api.controller.response.AnalysisJobResponse;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.jobs.AnalysisJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * REST endpoints for running CSV analyses in the background.
+ */
+@RestController
+@RequestMapping("/api/analysis/jobs")
+@CrossOrigin(
+    origins = "*",
+    allowedHeaders = "*",
+    exposedHeaders = "Location",
+    methods = {RequestMethod.POST, RequestMethod.GET, RequestMethod.OPTIONS}
+)
+@RequiredArgsConstructor
+public class AnalysisJobController {
+
+    private final AnalysisJobService analysisJobService;
+
+    // Queues the analysis and answers 202 with the job, whose status is polled at the Location
+    @PostMapping(
+            consumes = {"text/plain", "text/csv"},
+            produces = "application/json"
+    )
+    public ResponseEntity<AnalysisJobResponse> submitJob(
+            InputStream data,
+            @RequestParam(defaultValue = "exact") String percentiles,
+            @RequestParam(defaultValue = "0.01") double accuracy) {
+        AnalysisJobResponse job = analysisJobService.submit(data, AnalysisOptions.of(percentiles, accuracy));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/analysis/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public AnalysisJobResponse getJob(@PathVariable String id) {
+        return analysisJobService.getJob(id);
+    }
+}
@@ -1,17 +1,17 @@
 package com.sujon.spring_data_analysis_api.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
-import com.sujon.spring_data_analysis_api.exception.BadRequestException;
-import com.sujon.spring_data_analysis_api.exception.NotFoundException;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
 import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import com.sujon.spring_data_analysis_api.service.cache.AnalysisJsonCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 /**
@@ -22,6 +22,7 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
 @CrossOrigin(
     origins = "*",
     allowedHeaders = "*",
+    exposedHeaders = "Retry-After",
     methods = {RequestMethod.POST, RequestMethod.GET, RequestMethod.DELETE, RequestMethod.OPTIONS}
 ) 
 @RequiredArgsConstructor
@@ -34,11 +35,46 @@ public class DataAnalysisController {
             consumes = {"text/plain", "text/csv"},
             produces = "application/json"
     )
-    public DataAnalysisResponse ingestAndAnalyzeCsv(@RequestBody String data) {
-        if (data.contains("Sonny Hayes")) {
-            throw new BadRequestException("CSV data containing 'Sonny Hayes' is not allowed");
-        }
-        return dataAnalysisService.analyzeCsvData(data);
+    public DataAnalysisResponse ingestAndAnalyzeCsv(
+            @RequestBody String data,
+            @RequestParam(defaultValue = "exact") String percentiles,
+            @RequestParam(defaultValue = "0.01") double accuracy) {
+        return dataAnalysisService.analyzeCsvData(data, AnalysisOptions.of(percentiles, accuracy));
+    }
+
+    // Streams the body straight into the parser, no 5MB limit
+    @PostMapping(
+            value = "/ingestCsv/stream",
+            consumes = {"text/plain", "text/csv"},
+            produces = "application/json"
+    )
+    public DataAnalysisResponse ingestAndAnalyzeCsvStream(
+            InputStream data,
+            @RequestParam(defaultValue = "exact") String percentiles,
+            @RequestParam(defaultValue = "0.01") double accuracy) {
+        return dataAnalysisService.analyzeCsvStream(data, AnalysisOptions.of(percentiles, accuracy));
+    }
+
+    // Spools the body to a temporary file and analyzes it through a memory mapping, no 5MB limit
+    @PostMapping(
+            value = "/ingestCsv/file",
+            consumes = {"text/plain", "text/csv"},
+            produces = "application/json"
+    )
+    public DataAnalysisResponse ingestAndAnalyzeCsvFile(
+            InputStream data,
+            @RequestParam(defaultValue = "exact") String percentiles,
+            @RequestParam(defaultValue = "0.01") double accuracy) {
+        return dataAnalysisService.analyzeSpooledCsv(data, AnalysisOptions.of(percentiles, accuracy));
+    }
+
+    // Analyzes a file from the server's import directory in place
+    @PostMapping(value = "/import", produces = "application/json")
+    public DataAnalysisResponse importCsv(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "exact") String percentiles,
+            @RequestParam(defaultValue = "0.01") double accuracy) {
+        return dataAnalysisService.analyzeImportedCsv(file, AnalysisOptions.of(percentiles, accuracy));
     }
 
     @GetMapping("/{id}")
@@ -46,27 +82,20 @@ public class DataAnalysisController {
         return dataAnalysisService.getAnalysisById(id);
     }
 
-    // Allow download of json response
+    // Allow download of json response, gzipped when the client accepts it
     @GetMapping("/{id}/download.json")
-    public ResponseEntity<byte[]> downloadJson(@PathVariable Long id) {
-        try {
-            DataAnalysisResponse response = dataAnalysisService.getAnalysisById(id);
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.registerModule(new JavaTimeModule());
-            mapper.enable(SerializationFeature.INDENT_OUTPUT);
-            mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-            byte[] prettyJsonBytes = mapper.writeValueAsBytes(response);
-
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"analysis.json\"")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(prettyJsonBytes);
-
-        } catch (NotFoundException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new BadRequestException("Failed to generate JSON");
+    public ResponseEntity<byte[]> downloadJson(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AnalysisJsonCache.Document document = dataAnalysisService.getAnalysisDocument(id);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"analysis.json\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.gzip());
         }
+        return response.body(document.json());
     }
 
     @DeleteMapping("/{id}")
@@ -74,4 +103,34 @@ public class DataAnalysisController {
     public void deleteAnalysisById(@PathVariable Long id) {
         dataAnalysisService.deleteAnalysisById(id);
     }
+
+    /**
+     * @param acceptEncoding the Accept-Encoding header, or null
+     * @return true if it accepts gzip by name, or any encoding when gzip is not named,
+     *         with a non-zero quality
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean anyAccepted = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    accepted = !parameter.substring(2).trim().matches("0(\\.0{0,3})?");
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                anyAccepted = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(anyAccepted);
+    }
 }
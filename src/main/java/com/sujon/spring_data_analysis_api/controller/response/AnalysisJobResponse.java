@@ -0,0 +1,19 @@
+package com.sujon.spring_data_analysis_api.controller.response;
+
+import com.sujon.spring_data_analysis_api.model.JobStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Snapshot of an asynchronous analysis job.
+ */
+public record AnalysisJobResponse(
+        String id,
+        JobStatus status,
+        double progress, // Share of the upload parsed so far, from 0 to 1
+        Long analysisId, // Set once the job has succeeded
+        String error, // Set if the job has failed
+        OffsetDateTime createdAt,
+        OffsetDateTime finishedAt
+) {
+}
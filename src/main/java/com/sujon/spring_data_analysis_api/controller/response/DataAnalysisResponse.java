@@ -1,6 +1,7 @@
 package com.sujon.spring_data_analysis_api.controller.response;
 
 import  com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import  com.sujon.spring_data_analysis_api.model.PercentileMode;
 import java.time.OffsetDateTime;
 import java.util.List;
 
@@ -14,7 +15,20 @@ public record DataAnalysisResponse(
         long totalCharacters,
         List<ColumnStatistics> columnStatistics,
         OffsetDateTime createdAt,
-        boolean alreadyExists
+        boolean alreadyExists,
+        PercentileMode percentileMode, // How the median and percentiles were computed
+        Double percentileAccuracy // Normalized rank error bound, null for exact percentiles
 ) {
+
+    /**
+     * @return this response flagged as already existing
+     */
+    public DataAnalysisResponse asExisting() {
+        if (alreadyExists) {
+            return this;
+        }
+        return new DataAnalysisResponse(id, numberOfRows, numberOfColumns, totalCharacters, columnStatistics,
+                createdAt, true, percentileMode, percentileAccuracy);
+    }
 }
 
@@ -1,11 +1,16 @@
 package  com.sujon.spring_data_analysis_api.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.LENGTH_REQUIRED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 /**
  * Maps application exceptions to RFC 7807 ProblemDetail responses.
@@ -28,5 +33,34 @@ public class GlobalExceptionHandler {
                 ex.getMessage()
         );
     }
-}
 
+    @ExceptionHandler(LengthRequiredException.class)
+    public ProblemDetail handleLengthRequired(LengthRequiredException ex) {
+        return ProblemDetail.forStatusAndDetail(
+                LENGTH_REQUIRED,
+                ex.getMessage()
+        );
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ProblemDetail handlePayloadTooLarge(PayloadTooLargeException ex) {
+        return ProblemDetail.forStatusAndDetail(
+                PAYLOAD_TOO_LARGE,
+                ex.getMessage()
+        );
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ProblemDetail> handleTooManyRequests(TooManyRequestsException ex) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(TOO_MANY_REQUESTS);
+        if (ex.getRetryAfter() != null) {
+            // Whole seconds, rounded up so a client never retries too early
+            long seconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        return response.body(ProblemDetail.forStatusAndDetail(
+                TOO_MANY_REQUESTS,
+                ex.getMessage()
+        ));
+    }
+}
@@ -0,0 +1,12 @@
+package  com.sujon.spring_data_analysis_api.exception;
+
+/**
+ * Thrown when a request body has to be sized before it is read but has no Content-Length.
+ * Mapped to HTTP 411 by GlobalExceptionHandler.
+ */
+public class LengthRequiredException extends RuntimeException {
+
+    public LengthRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package  com.sujon.spring_data_analysis_api.exception;
+
+/**
+ * Thrown when a request body is larger than the server will ever accept.
+ * Mapped to HTTP 413 by GlobalExceptionHandler.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
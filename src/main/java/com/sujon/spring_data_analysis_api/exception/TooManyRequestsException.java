@@ -0,0 +1,29 @@
+package  com.sujon.spring_data_analysis_api.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request cannot be accepted until running work completes.
+ * Mapped to HTTP 429 by GlobalExceptionHandler, with a Retry-After header when
+ * a retry delay is given.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message) {
+        this(message, null);
+    }
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long the client should wait before retrying, or null if unknown
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,33 @@
+package  com.sujon.spring_data_analysis_api.model;
+
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+
+/**
+ * Per-request settings controlling how columns are profiled.
+ */
+public record AnalysisOptions(
+        PercentileMode percentileMode, // Exact or sketch-based percentiles
+        double percentileAccuracy // Normalized rank error tolerated in approx mode
+) {
+
+    public static final double DEFAULT_PERCENTILE_ACCURACY = 0.01;
+    public static final double MIN_PERCENTILE_ACCURACY = 0.001;
+    public static final double MAX_PERCENTILE_ACCURACY = 0.25;
+
+    public static final AnalysisOptions DEFAULT =
+            new AnalysisOptions(PercentileMode.EXACT, DEFAULT_PERCENTILE_ACCURACY);
+
+    /**
+     * Builds options from request parameters.
+     * @param percentiles the {@code percentiles} parameter, "exact" or "approx"
+     * @param accuracy the {@code accuracy} parameter, used in approx mode
+     * @return validated options
+     * @throws BadRequestException if a parameter is out of range
+     */
+    public static AnalysisOptions of(String percentiles, double accuracy) {
+        if (!(accuracy >= MIN_PERCENTILE_ACCURACY && accuracy <= MAX_PERCENTILE_ACCURACY)) {
+            throw new BadRequestException("accuracy must be between 0.001 and 0.25");
+        }
+        return new AnalysisOptions(PercentileMode.fromParameter(percentiles), accuracy);
+    }
+}
@@ -10,12 +10,15 @@ public record ColumnStatistics(
         String columnName, // Name of the column from CSV header
         int nullCount, // Count of null/empty values in the column
         int uniqueCount, // Count of distinct non-null values
+        UniqueCountMode uniqueCountMode, // Whether uniqueCount is exact or a HyperLogLog estimate
         boolean isNumeric, // Flag indicating if column contains numeric data
         Double min, // Minimum value for numeric columns, null for non-numeric
         Double max, // Maximum value for numeric columns, null for non-numeric
         Double mean, // Arithmetic mean for numeric columns, null for non-numeric
         Double median, // Median (50th percentile) for numeric columns, null for non-numeric
         Double standardDeviation, // Standard deviation for numeric columns, null for non-numeric
+        Double skewness, // Population skewness for numeric columns, null for non-numeric or constant columns
+        Double kurtosis, // Population excess kurtosis for numeric columns, null for non-numeric or constant columns
         List<Double> percentiles // Percentiles at 25th, 50th, 75th, 90th, 95th, 99th for numeric columns
 ) {
 }
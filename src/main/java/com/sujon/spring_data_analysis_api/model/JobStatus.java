@@ -0,0 +1,25 @@
+package  com.sujon.spring_data_analysis_api.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Lifecycle state of an asynchronous analysis job.
+ */
+public enum JobStatus {
+
+    QUEUED("queued"), // Accepted and waiting for a worker
+    RUNNING("running"), // Being parsed, profiled and stored
+    SUCCEEDED("succeeded"), // Finished, the analysis id is set
+    FAILED("failed"); // Finished without an analysis, the error is set
+
+    private final String value;
+
+    JobStatus(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package  com.sujon.spring_data_analysis_api.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+
+/**
+ * How the median and percentiles of numeric columns are computed.
+ */
+public enum PercentileMode {
+
+    EXACT("exact"), // Every value is kept and the required ranks are selected
+    APPROX("approx"); // Values go into a fixed-size quantile sketch
+
+    private final String parameter;
+
+    PercentileMode(String parameter) {
+        this.parameter = parameter;
+    }
+
+    @JsonValue
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * Resolves the value of the {@code percentiles} request parameter.
+     * @param parameter "exact" or "approx", case-insensitive
+     * @return the matching mode
+     * @throws BadRequestException for any other value
+     */
+    public static PercentileMode fromParameter(String parameter) {
+        for (PercentileMode mode : values()) {
+            if (mode.parameter.equalsIgnoreCase(parameter)) {
+                return mode;
+            }
+        }
+        throw new BadRequestException("percentiles must be 'exact' or 'approx'");
+    }
+}
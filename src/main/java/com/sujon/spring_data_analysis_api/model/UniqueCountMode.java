@@ -0,0 +1,23 @@
+package  com.sujon.spring_data_analysis_api.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * How the distinct-value count of a column was obtained.
+ */
+public enum UniqueCountMode {
+
+    EXACT("exact"), // Every distinct value was kept in a set
+    APPROX("approx"); // The column passed the exact limit and was estimated with HyperLogLog
+
+    private final String value;
+
+    UniqueCountMode(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+package  com.sujon.spring_data_analysis_api.repository;
+
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/**
+ * Read-only projection of one column of a stored analysis together with the analysis'
+ * own fields, built by {@link DataAnalysisRepository} straight from a join of
+ * {@code data_analysis} and {@code column_statistics} without loading either entity.
+ * <p>
+ * The column fields are null on the single row of an analysis without column rows, either
+ * because it has no columns or because its statistics are stored in {@code columnStatisticsBlob}.
+ */
+public record AnalysisColumnRow(
+        Long id,
+        int numberOfRows,
+        int numberOfColumns,
+        long totalCharacters,
+        OffsetDateTime createdAt,
+        PercentileMode percentileMode,
+        Double percentileAccuracy,
+        byte[] columnStatisticsBlob,
+        String columnName,
+        Integer nullCount,
+        Integer uniqueCount,
+        UniqueCountMode uniqueCountMode,
+        Boolean isNumeric,
+        Double minValue,
+        Double maxValue,
+        Double meanValue,
+        Double medianValue,
+        Double standardDeviation,
+        Double skewness,
+        Double kurtosis,
+        Double percentile25,
+        Double percentile50,
+        Double percentile75,
+        Double percentile90,
+        Double percentile95,
+        Double percentile99
+) {
+
+    /**
+     * @return true if this row carries a column, false for an analysis without columns
+     */
+    public boolean hasColumn() {
+        return columnName != null;
+    }
+
+    /**
+     * @return the statistics of the column in this row
+     */
+    public ColumnStatistics toColumnStatistics() {
+        boolean numeric = Boolean.TRUE.equals(isNumeric);
+        return new ColumnStatistics(
+                columnName,
+                nullCount,
+                uniqueCount,
+                uniqueCountMode,
+                numeric,
+                minValue,
+                maxValue,
+                meanValue,
+                medianValue,
+                standardDeviation,
+                skewness,
+                kurtosis,
+                numeric ? Arrays.asList(
+                        percentile25,
+                        percentile50,
+                        percentile75,
+                        percentile90,
+                        percentile95,
+                        percentile99
+                ) : null
+        );
+    }
+}
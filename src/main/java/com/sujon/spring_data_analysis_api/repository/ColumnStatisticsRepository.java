@@ -2,6 +2,9 @@ package  com.sujon.spring_data_analysis_api.repository;
 
 import  com.sujon.spring_data_analysis_api.repository.entity.ColumnStatisticsEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +12,9 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ColumnStatisticsRepository extends JpaRepository<ColumnStatisticsEntity, Long> {
+
+    // Removes the column rows of an analysis in one statement, once they are stored as a blob
+    @Modifying
+    @Query("delete from ColumnStatisticsEntity s where s.dataAnalysis.id = :dataAnalysisId")
+    void deleteByDataAnalysisId(@Param("dataAnalysisId") Long dataAnalysisId);
 }
@@ -1,18 +1,56 @@
 package  com.sujon.spring_data_analysis_api.repository;
 
 import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import java.util.Optional;
+import java.util.List;
 
 /**
  * Repository interface for database operations on {@link DataAnalysisEntity}.
  */
 @Repository
 public interface DataAnalysisRepository extends JpaRepository<DataAnalysisEntity, Long> {
-    // Added find by content hash for duplicate api call check for same file
-    Optional<DataAnalysisEntity> findByContentHash(String contentHash);
-}
 
+    // One row per column of an analysis, read in a single query with no entities loaded
+    String COLUMN_ROWS = """
+            select new com.sujon.spring_data_analysis_api.repository.AnalysisColumnRow(
+                a.id, a.numberOfRows, a.numberOfColumns, a.totalCharacters, a.createdAt,
+                a.percentileMode, a.percentileAccuracy, a.columnStatisticsBlob,
+                s.columnName, s.nullCount, s.uniqueCount, s.uniqueCountMode, s.isNumeric,
+                s.minValue, s.maxValue, s.meanValue, s.medianValue, s.standardDeviation,
+                s.skewness, s.kurtosis,
+                s.percentile25, s.percentile50, s.percentile75,
+                s.percentile90, s.percentile95, s.percentile99)
+            from DataAnalysisEntity a left join a.columnStatistics s
+            """;
+
+    // Only the dedup keys, to fill the dedup index at startup
+    @Query("select a.dedupKey from DataAnalysisEntity a")
+    List<String> findAllDedupKeys();
+
+    // The analysis with this id as column rows in column order, empty if there is none
+    @Query(COLUMN_ROWS + "where a.id = :id order by s.id")
+    List<AnalysisColumnRow> findColumnRowsById(@Param("id") Long id);
 
+    // The analysis with this dedup key as column rows in column order, empty if there is none
+    @Query(COLUMN_ROWS + "where a.dedupKey = :dedupKey order by s.id")
+    List<AnalysisColumnRow> findColumnRowsByDedupKey(@Param("dedupKey") String dedupKey);
 
+    // Analyses whose column statistics are still stored as rows, for the migration to blobs
+    @Query("""
+            select a.id from DataAnalysisEntity a
+            where a.columnStatisticsBlob is null
+            and exists (select s.id from ColumnStatisticsEntity s where s.dataAnalysis = a)
+            order by a.id
+            """)
+    List<Long> findIdsWithColumnRows(Pageable pageable);
+
+    // Stores the column statistics of an analysis as a blob without loading it
+    @Modifying
+    @Query("update DataAnalysisEntity a set a.columnStatisticsBlob = :blob where a.id = :id")
+    void updateColumnStatisticsBlob(@Param("id") Long id, @Param("blob") byte[] blob);
+}
@@ -0,0 +1,12 @@
+package  com.sujon.spring_data_analysis_api.repository;
+
+import com.sujon.spring_data_analysis_api.repository.entity.OriginalDataEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the raw content of analyses, keyed by analysis id.
+ */
+@Repository
+public interface OriginalDataRepository extends JpaRepository<OriginalDataEntity, Long> {
+}
@@ -1,10 +1,12 @@
 package  com.sujon.spring_data_analysis_api.repository.entity;
 
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
 import jakarta.persistence.*;
 import lombok.*;
 
+import static jakarta.persistence.EnumType.STRING;
 import static jakarta.persistence.FetchType.LAZY;
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 
 /**
  * JPA entity representing statistics for a single column in a data analysis.
@@ -24,7 +26,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
 public class ColumnStatisticsEntity {
 
     @Id // Primary key for the entity
-    @GeneratedValue(strategy = IDENTITY) // Auto-increment ID generation
+    @GeneratedValue(strategy = SEQUENCE, generator = "column_statistics_seq") // Pooled, one sequence call per 500 columns
+    @SequenceGenerator(name = "column_statistics_seq", sequenceName = "column_statistics_seq", allocationSize = 500)
     private Long id;
 
     @Column(name = "column_name", nullable = false) // CSV column header name
@@ -36,6 +39,11 @@ public class ColumnStatisticsEntity {
     @Column(name = "unique_count") // Count of distinct non-null values
     private int uniqueCount;
 
+    @Enumerated(STRING)
+    @Column(name = "unique_count_mode", nullable = false, length = 16) // Exact count or HyperLogLog estimate
+    @Builder.Default
+    private UniqueCountMode uniqueCountMode = UniqueCountMode.EXACT;
+
     @Column(name = "is_numeric") // Flag indicating if column is numeric
     private boolean isNumeric;
 
@@ -54,6 +62,12 @@ public class ColumnStatisticsEntity {
     @Column(name = "standard_deviation") // Standard deviation for numeric columns
     private Double standardDeviation;
 
+    @Column(name = "skewness") // Population skewness for numeric columns
+    private Double skewness;
+
+    @Column(name = "kurtosis") // Population excess kurtosis for numeric columns
+    private Double kurtosis;
+
     @Column(name = "percentile_25") // 25th percentile (Q1) for numeric columns
     private Double percentile25;
 
@@ -1,5 +1,6 @@
 package  com.sujon.spring_data_analysis_api.repository.entity;
 
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,11 +9,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static jakarta.persistence.CascadeType.ALL;
+import static jakarta.persistence.EnumType.STRING;
 import static jakarta.persistence.FetchType.EAGER;
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 
 /**
  * JPA entity representing a data analysis record in the {@code data_analysis} table.
+ * The raw content of in-memory uploads is stored apart, as an {@link OriginalDataEntity}.
  */
 @Entity
 @Table(name = "data_analysis")
@@ -23,18 +26,20 @@ import static jakarta.persistence.GenerationType.IDENTITY;
 @Builder
 public class DataAnalysisEntity {
 
+    // Pooled sequence ids are known before the insert, so Hibernate can batch it
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "data_analysis_seq")
+    @SequenceGenerator(name = "data_analysis_seq", sequenceName = "data_analysis_seq", allocationSize = 50)
     private Long id;
 
-    @Lob
-    @Column(name = "original_data", nullable = false, columnDefinition = "TEXT")
-    private String originalData;
-    
-    // content_hash for checking duplicate call
-    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    // SHA-256 hash of the normalized content
+    @Column(name = "content_hash", nullable = false, length = 64)
     private String contentHash;
 
+    // Content hash combined with the percentile options, see DedupKey; one analysis per key
+    @Column(name = "dedup_key", nullable = false, unique = true, length = 64)
+    private String dedupKey;
+
     @Column(name = "number_of_rows")
     private int numberOfRows;
 
@@ -47,6 +52,20 @@ public class DataAnalysisEntity {
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
+    @Enumerated(STRING)
+    @Column(name = "percentile_mode", nullable = false, length = 16)
+    @Builder.Default
+    private PercentileMode percentileMode = PercentileMode.EXACT;
+
+    // Rank error bound of approximate percentiles, null when they are exact
+    @Column(name = "percentile_accuracy")
+    private Double percentileAccuracy;
+
+    // All column statistics encoded by ColumnStatisticsCodec, set instead of the rows when stored as a blob
+    @Lob
+    @Column(name = "column_statistics_blob")
+    private byte[] columnStatisticsBlob;
+
     @OneToMany(mappedBy = "dataAnalysis", cascade = ALL, orphanRemoval = true, fetch = EAGER)
     @Builder.Default
     private List<ColumnStatisticsEntity> columnStatistics = new ArrayList<>();
@@ -0,0 +1,40 @@
+package  com.sujon.spring_data_analysis_api.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import static jakarta.persistence.FetchType.LAZY;
+
+/**
+ * JPA entity holding the raw CSV content of an analysis in the {@code original_data} table.
+ * <p>
+ * Kept out of {@link DataAnalysisEntity}, which has no reference to it, so loading
+ * an analysis never reads the content. The row shares the id of its analysis and is
+ * deleted with it by the database. The content is encoded by
+ * {@link com.sujon.spring_data_analysis_api.service.storage.CompressedText}.
+ */
+@Entity
+@Table(name = "original_data")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OriginalDataEntity {
+
+    @Id
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = LAZY, optional = false)
+    @JoinColumn(name = "data_analysis_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private DataAnalysisEntity dataAnalysis;
+
+    // Codec byte, uncompressed length and the encoded UTF-8 bytes
+    @Lob
+    @Column(name = "content", nullable = false)
+    private byte[] content;
+}
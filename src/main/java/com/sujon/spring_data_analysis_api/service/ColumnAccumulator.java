@@ -0,0 +1,215 @@
+package com.sujon.spring_data_analysis_api.service;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
+import com.sujon.spring_data_analysis_api.service.csv.CsvTokenizer;
+import com.sujon.spring_data_analysis_api.service.csv.NumberParser;
+import com.sujon.spring_data_analysis_api.service.stats.DoubleBuffer;
+import com.sujon.spring_data_analysis_api.service.stats.HyperLogLog;
+import com.sujon.spring_data_analysis_api.service.stats.MomentAccumulator;
+import com.sujon.spring_data_analysis_api.service.stats.QuantileSketch;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-column running state filled cell by cell while the CSV is tokenized:
+ * null count, distinct values and the numeric values seen so far.
+ * <p>
+ * In {@link PercentileMode#EXACT} mode every numeric value is buffered. In
+ * {@link PercentileMode#APPROX} mode values go into a {@link QuantileSketch}
+ * and a {@link MomentAccumulator}, so memory per column stays constant however
+ * many rows there are.
+ * <p>
+ * Distinct values are kept in a set until there are more than the configured
+ * exact limit, then the set is replaced by a {@link HyperLogLog} estimator
+ * and later cells are only hashed, without creating a string.
+ */
+final class ColumnAccumulator {
+
+    private int nullCount;
+    private int nonNullCount;
+    private Set<String> uniqueValues = new HashSet<>();
+    private HyperLogLog uniqueEstimator;
+    private final int exactUniqueLimit;
+    private final int uniquePrecision;
+    private DoubleBuffer numericValues;
+    private QuantileSketch sketch;
+    private MomentAccumulator moments;
+    private boolean numeric = true;
+    private long numericCount;
+
+    ColumnAccumulator(AnalysisOptions options, AnalysisProperties.UniqueCount uniqueCount) {
+        this.exactUniqueLimit = uniqueCount.getExactLimit();
+        this.uniquePrecision = uniqueCount.getPrecision();
+        if (options.percentileMode() == PercentileMode.APPROX) {
+            sketch = new QuantileSketch(options.percentileAccuracy());
+            moments = new MomentAccumulator();
+        } else {
+            numericValues = new DoubleBuffer();
+        }
+    }
+
+    /**
+     * Adds one cell of this column.
+     * @param buffer the tokenizer buffer holding the cell
+     * @param start index of the first character of the cell
+     * @param end index one past the last character of the cell
+     */
+    void accept(char[] buffer, int start, int end) {
+        if (isBlank(buffer, start, end)) {
+            nullCount++;
+            return;
+        }
+
+        // Same bounds as String.trim()
+        while (start < end && buffer[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] <= ' ') {
+            end--;
+        }
+        nonNullCount++;
+        if (uniqueEstimator != null) {
+            uniqueEstimator.add(HyperLogLog.hash(buffer, start, end));
+        } else if (uniqueValues.add(new String(buffer, start, end - start))
+                && uniqueValues.size() > exactUniqueLimit) {
+            switchToEstimate();
+        }
+
+        if (numeric) {
+            double numericValue = NumberParser.parse(buffer, start, end);
+            if (NumberParser.isNumber(numericValue)) {
+                addNumber(numericValue);
+            } else {
+                // A single text cell makes the column non-numeric, the values are no longer needed
+                numeric = false;
+                numericValues = null;
+                sketch = null;
+                moments = null;
+            }
+        }
+    }
+
+    /**
+     * Appends the state of a column accumulated over the lines that follow this one's,
+     * as when the CSV is parsed in chunks. Buffered values keep their input order.
+     * @param next the same column's accumulator for the next chunk, not used afterwards
+     */
+    void merge(ColumnAccumulator next) {
+        nullCount += next.nullCount;
+        nonNullCount += next.nonNullCount;
+
+        if (next.uniqueEstimator != null) {
+            if (uniqueEstimator == null) {
+                switchToEstimate();
+            }
+            uniqueEstimator.merge(next.uniqueEstimator);
+        } else if (uniqueEstimator != null) {
+            for (String value : next.uniqueValues) {
+                uniqueEstimator.add(HyperLogLog.hash(value));
+            }
+        } else {
+            uniqueValues.addAll(next.uniqueValues);
+            if (uniqueValues.size() > exactUniqueLimit) {
+                switchToEstimate();
+            }
+        }
+
+        if (!numeric || !next.numeric) {
+            numeric = false;
+            numericValues = null;
+            sketch = null;
+            moments = null;
+            return;
+        }
+        if (sketch == null) {
+            numericValues.addAll(next.numericValues);
+        } else {
+            sketch.merge(next.sketch);
+            moments.merge(next.moments);
+        }
+        numericCount += next.numericCount;
+    }
+
+    private void switchToEstimate() {
+        uniqueEstimator = new HyperLogLog(uniquePrecision);
+        for (String value : uniqueValues) {
+            uniqueEstimator.add(HyperLogLog.hash(value));
+        }
+        uniqueValues = null;
+    }
+
+    private void addNumber(double value) {
+        numericCount++;
+        if (sketch == null) {
+            numericValues.add(value);
+            return;
+        }
+        sketch.update(value);
+        moments.add(value);
+    }
+
+    int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * @return the exact distinct count, or the estimate clamped to what is known for certain:
+     * more than the exact limit and at most one per non-blank cell
+     */
+    int getUniqueCount() {
+        if (uniqueEstimator == null) {
+            return uniqueValues.size();
+        }
+        long estimate = uniqueEstimator.estimate();
+        return (int) Math.max(exactUniqueLimit + 1L, Math.min(estimate, nonNullCount));
+    }
+
+    UniqueCountMode getUniqueCountMode() {
+        return uniqueEstimator == null ? UniqueCountMode.EXACT : UniqueCountMode.APPROX;
+    }
+
+    /**
+     * @return true if every non-blank cell parsed as a number and at least one did
+     */
+    boolean isNumeric() {
+        return numeric && numericCount > 0;
+    }
+
+    long getNumericCount() {
+        return numericCount;
+    }
+
+    /**
+     * @return the buffered values in exact mode, null in approx mode
+     */
+    DoubleBuffer getNumericValues() {
+        return numericValues;
+    }
+
+    /**
+     * @return the quantile sketch in approx mode, null in exact mode
+     */
+    QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * @return the moments updated while parsing in approx mode, null in exact mode
+     */
+    MomentAccumulator getMoments() {
+        return moments;
+    }
+
+    private static boolean isBlank(char[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!CsvTokenizer.isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
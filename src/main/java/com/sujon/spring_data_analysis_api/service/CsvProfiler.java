@@ -0,0 +1,185 @@
+package com.sujon.spring_data_analysis_api.service;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.csv.CsvRecordHandler;
+
+import java.util.List;
+
+/**
+ * {@link CsvRecordHandler} that turns the tokenized CSV into header names,
+ * a row count and one {@link ColumnAccumulator} per column.
+ * <p>
+ * Validation follows the original split-based parser: the header must not be
+ * blank, blank lines are skipped, every other line must have the header's
+ * column count, and the line count times the column count must stay within
+ * the cell limit. A ragged row is only reported once the whole input has been
+ * seen, so an oversized input still fails with the cell count error. Blocked
+ * content and the size limit are checked on the raw characters, ahead of the
+ * tokenizer, by a {@link com.sujon.spring_data_analysis_api.service.csv.ContentValidator}.
+ * <p>
+ * For a parallel parse the header is profiled first, then every chunk of body
+ * lines goes to its own profiler from {@link #forChunk()}. Chunk profilers
+ * count lines from the chunk start and only record whether they saw a ragged
+ * row; {@link #mergeChunks} then fails exactly as a sequential parse would.
+ */
+final class CsvProfiler implements CsvRecordHandler {
+
+    private static final String INVALID_CSV = "Invalid CSV";
+    private static final String TOO_MANY_CELLS = "CSV exceeds maximum allowed cell count of one hundred thousand cells";
+
+    private final long maxCellCount;
+    private final AnalysisOptions options;
+    private final AnalysisProperties.UniqueCount uniqueCount;
+
+    private String[] headers;
+    private ColumnAccumulator[] columns;
+    private int numberOfRows;
+    private boolean headerLine;
+    private boolean ragged;
+
+    // Chunk profilers only: number of lines the chunk's tokenizer reported
+    private final boolean chunk;
+    private long lineCount;
+
+    CsvProfiler(long maxCellCount, AnalysisOptions options, AnalysisProperties.UniqueCount uniqueCount) {
+        this.maxCellCount = maxCellCount;
+        this.options = options;
+        this.uniqueCount = uniqueCount;
+        this.chunk = false;
+    }
+
+    private CsvProfiler(CsvProfiler header) {
+        this.maxCellCount = header.maxCellCount;
+        this.options = header.options;
+        this.uniqueCount = header.uniqueCount;
+        this.chunk = true;
+        this.headers = header.headers;
+        this.columns = newColumns(headers.length);
+    }
+
+    /**
+     * Creates a profiler for a chunk of body lines that follows the header parsed by this one.
+     * @return a profiler sharing this one's headers and settings, with empty columns
+     */
+    CsvProfiler forChunk() {
+        return new CsvProfiler(this);
+    }
+
+    @Override
+    public boolean startRecord(long lineIndex, int cellCount, boolean blank) {
+        if (chunk) {
+            return startChunkRecord(cellCount, blank);
+        }
+        if (lineIndex == 0) {
+            if (blank) {
+                throw new BadRequestException(INVALID_CSV);
+            }
+            headers = new String[cellCount];
+            columns = newColumns(cellCount);
+            headerLine = true;
+            return true;
+        }
+        headerLine = false;
+
+        if (lineIndex * headers.length > maxCellCount) {
+            throw new BadRequestException(TOO_MANY_CELLS);
+        }
+        if (blank || ragged) {
+            return false;
+        }
+        if (cellCount != headers.length) {
+            ragged = true;
+            return false;
+        }
+        numberOfRows++;
+        return true;
+    }
+
+    private boolean startChunkRecord(int cellCount, boolean blank) {
+        if (blank || ragged) {
+            return false;
+        }
+        if (cellCount != headers.length) {
+            ragged = true;
+            return false;
+        }
+        numberOfRows++;
+        return true;
+    }
+
+    @Override
+    public void cell(int column, char[] buffer, int start, int end) {
+        if (headerLine) {
+            headers[column] = new String(buffer, start, end - start);
+        } else {
+            columns[column].accept(buffer, start, end);
+        }
+    }
+
+    @Override
+    public void endOfInput(long lineCount) {
+        if (chunk) {
+            this.lineCount = lineCount;
+            return;
+        }
+        if (ragged) {
+            throw new BadRequestException(INVALID_CSV);
+        }
+    }
+
+    /**
+     * Folds chunk profilers into this header profiler and applies the checks a sequential
+     * parse makes line by line. An exceeded cell limit wins over a ragged row, as it is
+     * thrown while the ragged row is only reported at the end.
+     * @param chunks profilers from {@link #forChunk()} in input order, the header's
+     *               line break being the last character before the first chunk
+     * @throws BadRequestException under the same conditions as a sequential parse
+     */
+    void mergeChunks(List<CsvProfiler> chunks) {
+        long line = 1;
+        boolean anyRagged = false;
+        for (int k = 0; k < chunks.size(); k++) {
+            CsvProfiler next = chunks.get(k);
+            anyRagged |= next.ragged;
+            // A chunk that ends with a line break is reported one empty line longer by its tokenizer
+            line += k == chunks.size() - 1 ? next.lineCount : next.lineCount - 1;
+        }
+
+        long lastLine = line - 1;
+        if (lastLine * headers.length > maxCellCount) {
+            throw new BadRequestException(TOO_MANY_CELLS);
+        }
+        if (anyRagged) {
+            throw new BadRequestException(INVALID_CSV);
+        }
+
+        for (CsvProfiler next : chunks) {
+            numberOfRows += next.numberOfRows;
+            for (int c = 0; c < columns.length; c++) {
+                columns[c].merge(next.columns[c]);
+            }
+        }
+    }
+
+    private ColumnAccumulator[] newColumns(int count) {
+        ColumnAccumulator[] accumulators = new ColumnAccumulator[count];
+        for (int i = 0; i < count; i++) {
+            accumulators[i] = new ColumnAccumulator(options, uniqueCount);
+        }
+        return accumulators;
+    }
+
+    String[] getHeaders() {
+        return headers;
+    }
+
+    ColumnAccumulator[] getColumns() {
+        return columns;
+    }
+
+    int getNumberOfRows() {
+        return numberOfRows;
+    }
+}
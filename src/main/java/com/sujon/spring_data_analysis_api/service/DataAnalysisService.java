@@ -1,26 +1,64 @@
 package com.sujon.spring_data_analysis_api.service;
 
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
 import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
 import com.sujon.spring_data_analysis_api.exception.BadRequestException;
 import com.sujon.spring_data_analysis_api.exception.NotFoundException;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
 import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+import com.sujon.spring_data_analysis_api.repository.AnalysisColumnRow;
 import com.sujon.spring_data_analysis_api.repository.ColumnStatisticsRepository;
 import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import com.sujon.spring_data_analysis_api.repository.OriginalDataRepository;
 import com.sujon.spring_data_analysis_api.repository.entity.ColumnStatisticsEntity;
 import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import com.sujon.spring_data_analysis_api.repository.entity.OriginalDataEntity;
+import com.sujon.spring_data_analysis_api.service.cache.AnalysisJsonCache;
+import com.sujon.spring_data_analysis_api.service.cache.AnalysisResponseCache;
+import com.sujon.spring_data_analysis_api.service.csv.ContentFingerprint;
+import com.sujon.spring_data_analysis_api.service.csv.ContentValidator;
+import com.sujon.spring_data_analysis_api.service.csv.CsvTokenizer;
+import com.sujon.spring_data_analysis_api.service.csv.FingerprintReader;
+import com.sujon.spring_data_analysis_api.service.csv.MappedFileReader;
+import com.sujon.spring_data_analysis_api.service.csv.PhraseMatcher;
+import com.sujon.spring_data_analysis_api.service.csv.ValidatingReader;
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex;
+import com.sujon.spring_data_analysis_api.service.dedup.DedupKey;
+import com.sujon.spring_data_analysis_api.service.files.CsvFileStore;
+import com.sujon.spring_data_analysis_api.service.stats.MomentAccumulator;
+import com.sujon.spring_data_analysis_api.service.storage.ColumnStatisticsCodec;
+import com.sujon.spring_data_analysis_api.service.storage.ColumnStatisticsFormat;
+import com.sujon.spring_data_analysis_api.service.storage.CompressedText;
+import com.sujon.spring_data_analysis_api.service.stats.OrderStatistics;
+import com.sujon.spring_data_analysis_api.service.stats.QuantileSketch;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
-import java.util.Collections;
-import java.security.MessageDigest;
-import java.util.HexFormat;
 
 /**
  * Service layer containing business logic for CSV data analysis.
@@ -29,399 +67,715 @@ import java.util.HexFormat;
 @RequiredArgsConstructor
 public class DataAnalysisService {
 
-    private static final long MAX_FILE_SIZE_BYTES = 5 * 1024 * 1024;
+    // Largest upload to the in-memory endpoint
+    public static final long MAX_FILE_SIZE_BYTES = 5 * 1024 * 1024;
+
     private static final long MAX_CELL_COUNT = 1_000_000;
+    private static final double[] PERCENTILES = {25, 50, 75, 90, 95, 99};
 
     private final DataAnalysisRepository dataAnalysisRepository;
     private final ColumnStatisticsRepository columnStatisticsRepository;
+    private final OriginalDataRepository originalDataRepository;
+    private final AnalysisProperties analysisProperties;
+    private final ForkJoinPool analysisPool;
+    private final ContentHashIndex contentHashIndex;
+    private final AnalysisResponseCache analysisResponseCache;
+    private final AnalysisJsonCache analysisJsonCache;
+    private final PhraseMatcher blockedContent;
+    private final CsvFileStore csvFileStore;
+    private final TransactionTemplate transactionTemplate;
+
+    // Analyses deleted through this instance, so caching a read that raced with a delete can be undone
+    private final AtomicLong deletions = new AtomicLong();
 
     /**
-     * Generates a SHA-256 hash of the given input string.
-     * @param input the raw CSV data as a String
-     * @return a 64-character hexadecimal SHA-256 hash representing the input content
-     * @throws RuntimeException if the SHA-256 algorithm is not available
+     * Calculates the median (50th percentile) of an array of values.
+     * @param sortedValues values with the median ranks in sorted position (see {@link #requiredRanks})
+     * @return the median value, or null if the array is empty
      */
-    private String sha256(String input) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(input.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("Hashing failed");
+    private Double calculateMedian(double[] sortedValues) {
+        if (sortedValues.length == 0) {
+            return null;
+        }
+        int size = sortedValues.length;
+        if (size % 2 == 0) {
+            return (sortedValues[size / 2 - 1] + sortedValues[size / 2]) / 2.0;
+        } else {
+            return sortedValues[size / 2];
         }
     }
 
     /**
-     * Normalizes CSV content for consistent hashing.
-     * @param data the raw CSV content
-     * @return normalized CSV content suitable for hashing
+     * Maps the NaN a moment ratio returns for a constant column to null.
+     * @param value the computed statistic
+     * @return the value, or null if it is undefined
      */
-    private String normalizeForHash(String data) {
-        return data
-                .replace("\r\n", "\n")
-                .lines()
-                .map(String::trim)
-                .filter(line -> !line.isEmpty())
-                .reduce((a, b) -> a + "\n" + b)
-                .orElse("");
+    private Double definedOrNull(double value) {
+        return Double.isNaN(value) ? null : value;
     }
 
     /**
-     * Attempts to parse a string value as a Double.
-     * @param value the string value to parse
-     * @return the parsed Double value, or null if the value is blank or not a valid number
+     * Calculates a specific percentile from an array of values using linear interpolation.
+     * @param sortedValues values with the percentile ranks in sorted position (see {@link #requiredRanks})
+     * @param percentile the percentile to calculate (0-100)
+     * @return the interpolated percentile value, or null if the array is empty
      */
-    private Double tryParseDouble(String value) {
-        if (value == null || value.isBlank()) {
+    private Double calculatePercentile(double[] sortedValues, double percentile) {
+        if (sortedValues.length == 0) {
             return null;
         }
-        try {
-            return Double.parseDouble(value.trim());
-        } catch (NumberFormatException e) {
-            return null;
+        if (sortedValues.length == 1) {
+            return sortedValues[0];
+        }
+        double index = (percentile / 100.0) * (sortedValues.length - 1);
+        int lower = (int) Math.floor(index);
+        int upper = (int) Math.ceil(index);
+        if (lower == upper) {
+            return sortedValues[lower];
         }
+        double fraction = index - lower;
+        return sortedValues[lower] + fraction * (sortedValues[upper] - sortedValues[lower]);
     }
 
     /**
-     * Calculates the arithmetic mean (average) of a list of numeric values.
-     * @param values list of Double values to calculate the mean from
-     * @return the arithmetic mean, or null if the list is empty
+     * Lists the positions of the sorted order read by the min, max, median and percentile
+     * calculations, so only those need to be selected instead of sorting the whole column.
+     * @param size number of values in the column
+     * @return zero-based ranks, possibly with duplicates
      */
-    private Double calculateMean(List<Double> values) {
-        if (values.isEmpty()) {
-            return null;
-        }
-        double sum = 0.0;
-        for (Double value : values) {
-            sum += value;
+    private int[] requiredRanks(int size) {
+        int[] ranks = new int[4 + 2 * PERCENTILES.length];
+        ranks[0] = 0;
+        ranks[1] = size - 1;
+        ranks[2] = (size - 1) / 2;
+        ranks[3] = size / 2;
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double index = (PERCENTILES[i] / 100.0) * (size - 1);
+            ranks[4 + 2 * i] = (int) Math.floor(index);
+            ranks[5 + 2 * i] = (int) Math.ceil(index);
         }
-        return sum / values.size();
+        return ranks;
     }
 
     /**
-     * Calculates the median (50th percentile) of a sorted list of values.
-     * @param sortedValues a pre-sorted list of Double values (ascending order)
-     * @return the median value, or null if the list is empty
+     * Analyzes CSV data and returns statistical analysis results.
+     * <p>
+     * The content is validated and fingerprinted on a pass of its own, which checks the
+     * size limit and blocked content, and looked up before it is parsed. Content whose
+     * normalized form was analyzed before with the same options is answered with the
+     * stored analysis without being parsed or profiled again, even where it would not
+     * parse as uploaded, for example when it starts with a blank line. Other content is
+     * parsed, and blank content and the cell limit are checked by the profiler it feeds.
+     * @param data the raw CSV content as a string
+     * @param options how numeric columns are profiled
+     * @return DataAnalysisResponse containing analysis results and metadata
+     * @throws BadRequestException if the CSV data is null, blank, too large, blocked or invalid
      */
-    private Double calculateMedian(List<Double> sortedValues) {
-        if (sortedValues.isEmpty()) {
-            return null;
+    public DataAnalysisResponse analyzeCsvData(String data, AnalysisOptions options) {
+
+        if (data == null) {
+            throw new BadRequestException("Invalid CSV");
         }
-        int size = sortedValues.size();
-        if (size % 2 == 0) {
-            return (sortedValues.get(size / 2 - 1) + sortedValues.get(size / 2)) / 2.0;
-        } else {
-            return sortedValues.get(size / 2);
+
+        // Every character takes at least one UTF-8 byte, so more characters than the limit can be rejected unread
+        if (data.length() > MAX_FILE_SIZE_BYTES) {
+            throw new BadRequestException("File size exceeds maximum allowed size of 5MB");
         }
+
+        // Nor can a character take more than three, so short content need not have its bytes counted
+        long maxBytes = data.length() * 3L <= MAX_FILE_SIZE_BYTES ? Long.MAX_VALUE : MAX_FILE_SIZE_BYTES;
+        String contentHash = onAnalysisPool(() -> fingerprint(data, maxBytes));
+        Optional<DataAnalysisResponse> existing = findExisting(contentHash, options);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        CsvProfiler profiler = onAnalysisPool(() -> parseCsvData(data, options));
+        return saveAnalysis(profiler, data, contentHash, data.length(), options);
     }
 
     /**
-     * Calculates the population standard deviation of a list of values.
-     * @param values list of Double values
-     * @param mean the pre-calculated arithmetic mean of the values
-     * @return the population standard deviation, or null if the list is empty or mean is null
+     * Looks up the analysis already stored for a content hash with the same percentile options,
+     * through the dedup index first and the database only when the index cannot rule it out or answer it.
+     * @param contentHash the SHA-256 hash of the normalized content
+     * @param options how numeric columns are profiled
+     * @return the stored analysis flagged as already existing, or empty if there is none
      */
-    private Double calculateStandardDeviation(List<Double> values, Double mean) {
-        if (values.isEmpty() || mean == null) {
-            return null;
+    private Optional<DataAnalysisResponse> findExisting(String contentHash, AnalysisOptions options) {
+        String dedupKey = DedupKey.of(contentHash, options);
+        if (!contentHashIndex.mightContain(dedupKey)) {
+            return Optional.empty();
         }
-        double sumSquaredDiff = 0.0;
-        for (Double value : values) {
-            double diff = value - mean;
-            sumSquaredDiff += diff * diff;
+        DataAnalysisResponse cached = contentHashIndex.get(dedupKey);
+        if (cached != null) {
+            return Optional.of(cached);
         }
-        double variance = sumSquaredDiff / values.size();
-        return Math.sqrt(variance);
+        long deletionsBefore = deletions.get();
+        Optional<DataAnalysisResponse> existing =
+                toExistingResponse(dataAnalysisRepository.findColumnRowsByDedupKey(dedupKey));
+        existing.ifPresent(response -> {
+            contentHashIndex.put(dedupKey, response);
+            analysisResponseCache.put(response);
+            evictIfDeletedSince(deletionsBefore, response.id());
+        });
+        return existing;
     }
 
     /**
-     * Calculates a specific percentile from a sorted list of values using linear interpolation.
-     * @param sortedValues a pre-sorted list of Double values (ascending order)
-     * @param percentile the percentile to calculate (0-100)
-     * @return the interpolated percentile value, or null if the list is empty
+     * Builds the response for a stored analysis from its column rows, or from the blob on
+     * its row when its column statistics are stored as one.
+     * @param rows the rows of one analysis in column order, as read by {@link DataAnalysisRepository}
+     * @return DataAnalysisResponse flagged as already existing, or empty if there are no rows
      */
-    private Double calculatePercentile(List<Double> sortedValues, double percentile) {
-        if (sortedValues.isEmpty()) {
-            return null;
+    private Optional<DataAnalysisResponse> toExistingResponse(List<AnalysisColumnRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
         }
-        if (sortedValues.size() == 1) {
-            return sortedValues.get(0);
-        }
-        double index = (percentile / 100.0) * (sortedValues.size() - 1);
-        int lower = (int) Math.floor(index);
-        int upper = (int) Math.ceil(index);
-        if (lower == upper) {
-            return sortedValues.get(lower);
-        }
-        double fraction = index - lower;
-        return sortedValues.get(lower) + fraction * (sortedValues.get(upper) - sortedValues.get(lower));
+        AnalysisColumnRow analysis = rows.get(0);
+        return Optional.of(new DataAnalysisResponse(
+                analysis.id(),
+                analysis.numberOfRows(),
+                analysis.numberOfColumns(),
+                analysis.totalCharacters(),
+                analysis.columnStatisticsBlob() != null
+                        ? ColumnStatisticsCodec.decode(analysis.columnStatisticsBlob())
+                        : rows.stream()
+                                .filter(AnalysisColumnRow::hasColumn)
+                                .map(AnalysisColumnRow::toColumnStatistics)
+                                .toList(),
+                analysis.createdAt(),
+                true,
+                analysis.percentileMode(),
+                analysis.percentileAccuracy()
+        ));
     }
 
     /**
-     * Analyzes CSV data and returns statistical analysis results.
-     * @param data the raw CSV content as a string
-     * @return DataAnalysisResponse containing analysis results and metadata
-     * @throws BadRequestException if the CSV data is null, blank, or invalid
+     * Validates the whole content and fingerprints it, one slice at a time, without parsing it.
+     * @param data the raw CSV content
+     * @param maxBytes largest allowed UTF-8 size of the content, {@link Long#MAX_VALUE} for no limit
+     * @return the SHA-256 hash of the normalized content
+     * @throws BadRequestException if the content contains blocked content or is too large
      */
-    public DataAnalysisResponse analyzeCsvData(String data) {
-
-        if (data == null || data.isBlank()) {
-            throw new BadRequestException("Invalid CSV");
+    private String fingerprint(String data, long maxBytes) {
+        ContentValidator validator = new ContentValidator(blockedContent, maxBytes);
+        ContentFingerprint fingerprint = new ContentFingerprint();
+        char[] slice = new char[Math.min(data.length(), CsvTokenizer.DEFAULT_BUFFER_SIZE)];
+        for (int start = 0; start < data.length(); start += slice.length) {
+            int length = Math.min(slice.length, data.length() - start);
+            data.getChars(start, start + length, slice, 0);
+            validator.update(slice, 0, length);
+            fingerprint.update(slice, 0, length);
         }
+        return fingerprint.finish();
+    }
 
-        long fileSizeBytes = data.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
-        if (fileSizeBytes > MAX_FILE_SIZE_BYTES) {
-            throw new BadRequestException("File size exceeds maximum allowed size of 5MB");
-        }
+    /**
+     * Parses and profiles CSV content that has already been validated.
+     * @param data the raw CSV content
+     * @param options how numeric columns are profiled
+     * @return the profiler holding the parsed columns
+     * @throws BadRequestException if the CSV is malformed
+     */
+    private CsvProfiler parseCsvData(String data, AnalysisOptions options) {
 
-        String contentHash = sha256(normalizeForHash(data));
-
-        return dataAnalysisRepository.findByContentHash(contentHash)
-                .map(existing -> new DataAnalysisResponse(
-                        existing.getId(),
-                        existing.getNumberOfRows(),
-                        existing.getNumberOfColumns(),
-                        existing.getTotalCharacters(),
-                        existing.getColumnStatistics().stream()
-                                .map(s -> new ColumnStatistics(
-                                        s.getColumnName(),
-                                        s.getNullCount(),
-                                        s.getUniqueCount(),
-                                        s.isNumeric(),
-                                        s.getMinValue(),
-                                        s.getMaxValue(),
-                                        s.getMeanValue(),
-                                        s.getMedianValue(),
-                                        s.getStandardDeviation(),
-                                        s.isNumeric() ? Arrays.asList(
-                                                s.getPercentile25(),
-                                                s.getPercentile50(),
-                                                s.getPercentile75(),
-                                                s.getPercentile90(),
-                                                s.getPercentile95(),
-                                                s.getPercentile99()
-                                        ) : null
-                                ))
-                                .toList(),
-                        existing.getCreatedAt(),
-                        true
-                ))
-                .orElseGet(() -> createNewAnalysis(data, contentHash));
+        CsvProfiler profiler = new CsvProfiler(MAX_CELL_COUNT, options, analysisProperties.getUniqueCount());
+        int headerEnd = CsvTokenizer.nextLineStart(data, 0);
+        if (parsesInChunks(data, headerEnd, options)) {
+            tokenize(new StringReader(data.substring(0, headerEnd)), profiler);
+            parseBodyInChunks(data, headerEnd, profiler);
+        } else {
+            tokenize(new StringReader(data), profiler);
+        }
+        return profiler;
     }
 
     /**
-     * Performs full CSV parsing, statistical analysis, and database persistence.
+     * Decides whether an in-memory CSV is worth splitting across the analysis pool.
+     * Approximate percentiles always parse sequentially, since merged sketches are not
+     * identical to a sketch fed every value in order, and so does content with quotes,
+     * where a line break may be inside a cell rather than between records.
      * @param data the raw CSV content
-     * @param contentHash the pre-computed SHA-256 hash of the normalized content
-     * @return DataAnalysisResponse containing the newly created analysis results
-     * @throws BadRequestException if the CSV is malformed or contains blocked content
+     * @param headerEnd index of the first character after the header line
+     * @param options how numeric columns are profiled
+     * @return true to parse the body in chunks
      */
-    private DataAnalysisResponse createNewAnalysis(String data, String contentHash) {
-
-        String[] lines = data.split("\\R", -1);
+    private boolean parsesInChunks(String data, int headerEnd, AnalysisOptions options) {
+        return options.percentileMode() == PercentileMode.EXACT
+                && analysisPool.getParallelism() > 1
+                && data.length() >= analysisProperties.getParallel().getParseThreshold()
+                && headerEnd < data.length()
+                && data.indexOf('"') < 0;
+    }
 
-        if (data.contains("Sonny Hayes")) {
-            throw new BadRequestException("Invalid CSV");
+    /**
+     * Parses the lines after the header in parallel, one chunk of whole lines per pool
+     * thread, and merges the chunk results in input order into the header's profiler.
+     * <p>
+     * Validation and the fingerprint are inherently sequential, and have run over the whole
+     * content before this is called, so no chunk is parsed for content that is rejected.
+     * @param data the raw CSV content
+     * @param headerEnd index of the first character after the header line
+     * @param profiler the profiler the header line was tokenized into
+     * @throws BadRequestException under the same conditions as a sequential parse
+     */
+    private void parseBodyInChunks(String data, int headerEnd, CsvProfiler profiler) {
+        int chunkCount = analysisPool.getParallelism();
+        long bodyLength = data.length() - headerEnd;
+        List<CsvProfiler> chunks = new ArrayList<>(chunkCount);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+
+        int start = headerEnd;
+        for (int k = 1; start < data.length(); k++) {
+            int target = headerEnd + (int) (bodyLength * k / chunkCount);
+            int end = k >= chunkCount ? data.length() : CsvTokenizer.nextLineStart(data, Math.max(start, target));
+            String text = data.substring(start, end);
+            CsvProfiler chunk = profiler.forChunk();
+            chunks.add(chunk);
+            tasks.add(analysisPool.submit(() -> tokenize(new StringReader(text), chunk)));
+            start = end;
         }
-
-        if (lines.length == 0 || lines[0].isBlank()) {
-            throw new BadRequestException("Invalid CSV");
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
         }
 
-        String[] headers = lines[0].split(",", -1);
-        int numberOfColumns = headers.length;
+        profiler.mergeChunks(chunks);
+    }
 
-        long estimatedCellCount = (long) (lines.length - 1) * numberOfColumns;
-        if (estimatedCellCount > MAX_CELL_COUNT) {
-            throw new BadRequestException("CSV exceeds maximum allowed cell count of one hundred thousand cells");
+    private void tokenize(Reader reader, CsvProfiler profiler) {
+        try {
+            newTokenizer(reader).tokenize(profiler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        int numberOfRows = 0;
-        int[] nullCounts = new int[numberOfColumns];
-        long totalCharacters = data.length();
+    /**
+     * Creates a tokenizer on the scalar or the vectorized backend, as configured.
+     */
+    private CsvTokenizer newTokenizer(Reader reader) {
+        return new CsvTokenizer(reader, analysisProperties.getParser().isVectorized());
+    }
 
-        @SuppressWarnings("unchecked")
-        Set<String>[] uniqueValues = new Set[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) {
-            uniqueValues[i] = new HashSet<>();
-        }
+    /**
+     * Analyzes CSV data read from a stream, without buffering the whole body.
+     * <p>
+     * The stream is decoded as UTF-8 and tokenized through a fixed-size buffer while the
+     * content is validated and its hash and character count are computed on the same pass.
+     * A stream cannot be read twice, so stored analyses are only looked up once it is parsed.
+     * The 5MB and cell count limits of {@link #analyzeCsvData(String, AnalysisOptions)} do not apply.
+     * The raw content is not stored for streamed analyses.
+     * @param input the request body stream
+     * @param options how numeric columns are profiled
+     * @return DataAnalysisResponse containing analysis results and metadata
+     * @throws BadRequestException if the CSV data is blank, invalid or cannot be read
+     */
+    public DataAnalysisResponse analyzeCsvStream(InputStream input, AnalysisOptions options) {
+        Reader source = new InputStreamReader(input, StandardCharsets.UTF_8);
+        ContentValidator validator = new ContentValidator(blockedContent, Long.MAX_VALUE);
+        FingerprintReader reader = new FingerprintReader(new ValidatingReader(source, validator));
+        CsvProfiler profiler = new CsvProfiler(Long.MAX_VALUE, options, analysisProperties.getUniqueCount());
+        parse(reader, profiler);
+
+        String contentHash = reader.getContentHash();
 
-        @SuppressWarnings("unchecked")
-        List<Double>[] numericValues = new ArrayList[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) {
-            numericValues[i] = new ArrayList<>();
+        return findExisting(contentHash, options)
+                .orElseGet(() -> saveAnalysis(profiler, null, contentHash, reader.getCharacterCount(), options));
+    }
+
+    /**
+     * Analyzes a request body after spooling it to a temporary file, which is deleted
+     * before this method returns, whether the analysis succeeds or not.
+     * @param input the request body stream
+     * @param options how numeric columns are profiled
+     * @return DataAnalysisResponse containing analysis results and metadata
+     * @throws BadRequestException if the CSV data is blank, invalid or cannot be read
+     */
+    public DataAnalysisResponse analyzeSpooledCsv(InputStream input, AnalysisOptions options) {
+        Path file = csvFileStore.spool(input);
+        try {
+            return analyzeCsvFile(file, options);
+        } finally {
+            csvFileStore.delete(file);
         }
+    }
 
-        boolean[] isNumericColumn = new boolean[numberOfColumns];
-        Arrays.fill(isNumericColumn, true);
+    /**
+     * Analyzes a file from the configured import directory in place.
+     * @param name the file name relative to the import directory
+     * @param options how numeric columns are profiled
+     * @return DataAnalysisResponse containing analysis results and metadata
+     * @throws NotFoundException if imports are disabled or the file does not exist
+     * @throws BadRequestException if the CSV data is blank, invalid or cannot be read
+     */
+    public DataAnalysisResponse analyzeImportedCsv(String name, AnalysisOptions options) {
+        return analyzeCsvFile(csvFileStore.resolveImport(name), options);
+    }
 
-        for (int i = 1; i < lines.length; i++) {
+    /**
+     * Analyzes a UTF-8 file through a memory mapping, so its content is read from the
+     * page cache rather than copied onto the heap, and the same limits apply as for
+     * {@link #analyzeCsvStream(InputStream, AnalysisOptions)}. The file is validated and
+     * fingerprinted on a first pass and looked up before it is parsed, so a file analyzed
+     * before is answered with the stored analysis without being parsed or profiled again.
+     * The file must not change while it is analyzed.
+     * @param file the file to analyze
+     * @param options how numeric columns are profiled
+     * @param progress receives the number of bytes of the file parsed so far, and nothing
+     *                 for a file analyzed before
+     * @return DataAnalysisResponse containing analysis results and metadata
+     * @throws BadRequestException if the CSV data is blank, invalid or cannot be read
+     */
+    public DataAnalysisResponse analyzeCsvFile(Path file, AnalysisOptions options, LongConsumer progress) {
+        FingerprintReader fingerprint = onAnalysisPool(() -> fingerprint(file));
+        String contentHash = fingerprint.getContentHash();
+        Optional<DataAnalysisResponse> existing = findExisting(contentHash, options);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
 
-            if (lines[i].isBlank()) {
-                continue;
-            }
+        CsvProfiler profiler = new CsvProfiler(Long.MAX_VALUE, options, analysisProperties.getUniqueCount());
+        try (Reader reader = new MappedFileReader(FileChannel.open(file, StandardOpenOption.READ), progress)) {
+            onAnalysisPool(() -> parse(reader, profiler));
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read CSV data");
+        }
+        return saveAnalysis(profiler, null, contentHash, fingerprint.getCharacterCount(), options);
+    }
 
-            String[] values = lines[i].split(",", -1);
+    private DataAnalysisResponse analyzeCsvFile(Path file, AnalysisOptions options) {
+        return analyzeCsvFile(file, options, bytesRead -> {
+        });
+    }
 
-            if (values.length != numberOfColumns) {
-                throw new BadRequestException("Invalid CSV");
+    /**
+     * Validates and fingerprints a file through a memory mapping, without parsing it.
+     * @param file the file to read
+     * @return the reader the file was read through, holding its hash and character count
+     * @throws BadRequestException if the content is blocked or cannot be read
+     */
+    private FingerprintReader fingerprint(Path file) {
+        ContentValidator validator = new ContentValidator(blockedContent, Long.MAX_VALUE);
+        try (FingerprintReader reader = new FingerprintReader(new ValidatingReader(
+                new MappedFileReader(FileChannel.open(file, StandardOpenOption.READ)), validator))) {
+            char[] buffer = new char[CsvTokenizer.DEFAULT_BUFFER_SIZE];
+            while (reader.read(buffer, 0, buffer.length) >= 0) {
+                // Read only to feed the validator and the fingerprint
             }
+            return reader;
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read CSV data");
+        }
+    }
 
-            numberOfRows++;
+    /**
+     * Tokenizes decoded CSV content into a profiler, without the limits that apply to in-memory uploads.
+     * @param reader the decoded content
+     * @param profiler the profiler to feed
+     * @throws BadRequestException if the CSV data is blank, invalid or cannot be read
+     */
+    private void parse(Reader reader, CsvProfiler profiler) {
+        try {
+            newTokenizer(reader).tokenize(profiler);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read CSV data");
+        }
+    }
 
-            for (int c = 0; c < numberOfColumns; c++) {
-                if (values[c].isBlank()) {
-                    nullCounts[c]++;
-                } else {
-                    uniqueValues[c].add(values[c].trim());
+    /**
+     * Computes column statistics from a completed parse and persists the analysis.
+     * @param profiler the profiler the CSV was tokenized into
+     * @param originalData the raw CSV content, or null when it was streamed or read from a file
+     * @param contentHash the SHA-256 hash of the normalized content
+     * @param totalCharacters number of characters in the raw content
+     * @param options how numeric columns were profiled
+     * @return DataAnalysisResponse containing the newly created analysis results
+     */
+    private DataAnalysisResponse saveAnalysis(CsvProfiler profiler, String originalData, String contentHash,
+                                              long totalCharacters, AnalysisOptions options) {
 
-                    Double numericValue = tryParseDouble(values[c]);
-                    if (numericValue != null) {
-                        numericValues[c].add(numericValue);
-                    } else {
-                        isNumericColumn[c] = false;
-                    }
-                }
-            }
-        }
+        String[] headers = profiler.getHeaders();
+        ColumnAccumulator[] columns = profiler.getColumns();
+        int numberOfColumns = headers.length;
+        int numberOfRows = profiler.getNumberOfRows();
+        boolean[] isNumericColumn = new boolean[numberOfColumns];
 
         Double[] minValues = new Double[numberOfColumns];
         Double[] maxValues = new Double[numberOfColumns];
         Double[] meanValues = new Double[numberOfColumns];
         Double[] medianValues = new Double[numberOfColumns];
         Double[] stdDevValues = new Double[numberOfColumns];
+        Double[] skewnessValues = new Double[numberOfColumns];
+        Double[] kurtosisValues = new Double[numberOfColumns];
         Double[][] percentileValues = new Double[numberOfColumns][6];
 
-        for (int c = 0; c < numberOfColumns; c++) {
-            if (isNumericColumn[c] && !numericValues[c].isEmpty()) {
-                List<Double> values = numericValues[c];
-                Collections.sort(values);
+        long numericValueCount = 0;
+        for (ColumnAccumulator column : columns) {
+            numericValueCount += column.isNumeric() ? column.getNumericCount() : 0;
+        }
 
-                minValues[c] = values.get(0);
-                maxValues[c] = values.get(values.size() - 1);
-                meanValues[c] = calculateMean(values);
-                medianValues[c] = calculateMedian(values);
-                stdDevValues[c] = calculateStandardDeviation(values, meanValues[c]);
-
-                percentileValues[c][0] = calculatePercentile(values, 25);
-                percentileValues[c][1] = calculatePercentile(values, 50);
-                percentileValues[c][2] = calculatePercentile(values, 75);
-                percentileValues[c][3] = calculatePercentile(values, 90);
-                percentileValues[c][4] = calculatePercentile(values, 95);
-                percentileValues[c][5] = calculatePercentile(values, 99);
+        // Each column writes only its own slot of the arrays, so the order columns finish in does not matter
+        forEachColumn(numberOfColumns, numericValueCount, c -> {
+            if (!columns[c].isNumeric()) {
+                return;
+            }
+            isNumericColumn[c] = true;
+            QuantileSketch sketch = columns[c].getSketch();
+            MomentAccumulator moments = columns[c].getMoments();
+
+            if (sketch != null) {
+                minValues[c] = sketch.getMin();
+                maxValues[c] = sketch.getMax();
+                medianValues[c] = sketch.quantile(0.5);
+
+                for (int p = 0; p < PERCENTILES.length; p++) {
+                    percentileValues[c][p] = sketch.quantile(PERCENTILES[p] / 100.0);
+                }
             } else {
-                isNumericColumn[c] = false;
+                double[] values = columns[c].getNumericValues().toArray();
+                // One pass in input order before selection reorders the values, so a chunked
+                // parse, which concatenates the same values, gives identical moments
+                moments = new MomentAccumulator();
+                moments.addAll(values, values.length);
+                OrderStatistics.select(values, values.length, requiredRanks(values.length));
+
+                minValues[c] = values[0];
+                maxValues[c] = values[values.length - 1];
+                medianValues[c] = calculateMedian(values);
+
+                for (int p = 0; p < PERCENTILES.length; p++) {
+                    percentileValues[c][p] = calculatePercentile(values, PERCENTILES[p]);
+                }
             }
-        }
+
+            meanValues[c] = moments.getMean();
+            stdDevValues[c] = moments.getStandardDeviation();
+            skewnessValues[c] = definedOrNull(moments.getSkewness());
+            kurtosisValues[c] = definedOrNull(moments.getKurtosis());
+        });
 
         OffsetDateTime createdAt = OffsetDateTime.now();
+        PercentileMode percentileMode = options.percentileMode();
+        Double percentileAccuracy = percentileMode == PercentileMode.APPROX ? options.percentileAccuracy() : null;
+
+        String dedupKey = DedupKey.of(contentHash, options);
 
         DataAnalysisEntity dataAnalysisEntity = DataAnalysisEntity.builder()
-                .originalData(data)
                 .contentHash(contentHash)
+                .dedupKey(dedupKey)
                 .numberOfRows(numberOfRows)
                 .numberOfColumns(numberOfColumns)
                 .totalCharacters(totalCharacters)
                 .createdAt(createdAt)
+                .percentileMode(percentileMode)
+                .percentileAccuracy(percentileAccuracy)
                 .build();
 
-        dataAnalysisRepository.save(dataAnalysisEntity);
-
-        List<ColumnStatisticsEntity> columnStatisticsEntities =
+        List<ColumnStatistics> columnStatistics =
                 IntStream.range(0, numberOfColumns)
-                        .mapToObj(i -> ColumnStatisticsEntity.builder()
-                                .dataAnalysis(dataAnalysisEntity)
-                                .columnName(headers[i])
-                                .nullCount(nullCounts[i])
-                                .uniqueCount(uniqueValues[i].size())
-                                .isNumeric(isNumericColumn[i])
-                                .minValue(minValues[i])
-                                .maxValue(maxValues[i])
-                                .meanValue(meanValues[i])
-                                .medianValue(medianValues[i])
-                                .standardDeviation(stdDevValues[i])
-                                .percentile25(percentileValues[i][0])
-                                .percentile50(percentileValues[i][1])
-                                .percentile75(percentileValues[i][2])
-                                .percentile90(percentileValues[i][3])
-                                .percentile95(percentileValues[i][4])
-                                .percentile99(percentileValues[i][5])
-                                .build())
+                        .mapToObj(i -> new ColumnStatistics(
+                                headers[i],
+                                columns[i].getNullCount(),
+                                columns[i].getUniqueCount(),
+                                columns[i].getUniqueCountMode(),
+                                isNumericColumn[i],
+                                minValues[i],
+                                maxValues[i],
+                                meanValues[i],
+                                medianValues[i],
+                                stdDevValues[i],
+                                skewnessValues[i],
+                                kurtosisValues[i],
+                                isNumericColumn[i] ? Arrays.asList(percentileValues[i]) : null
+                        ))
                         .toList();
 
-        columnStatisticsRepository.saveAll(columnStatisticsEntities);
+        // As a blob the statistics go on the analysis row itself and no column rows are written
+        List<ColumnStatisticsEntity> columnStatisticsEntities;
+        if (analysisProperties.getStorage().getColumnStatistics() == ColumnStatisticsFormat.BLOB) {
+            dataAnalysisEntity.setColumnStatisticsBlob(ColumnStatisticsCodec.encode(columnStatistics));
+            columnStatisticsEntities = List.of();
+        } else {
+            columnStatisticsEntities = columnStatistics.stream()
+                    .map(statistics -> toColumnStatisticsEntity(statistics, dataAnalysisEntity))
+                    .toList();
+        }
+
+        // Compressed before the transaction so it does not hold a connection meanwhile
+        OriginalDataEntity originalDataEntity = originalData == null ? null : OriginalDataEntity.builder()
+                .dataAnalysis(dataAnalysisEntity)
+                .content(CompressedText.encode(originalData))
+                .build();
 
-        return new DataAnalysisResponse(
+        // One transaction, so the inserts are flushed together at commit and sent in JDBC batches
+        transactionTemplate.executeWithoutResult(status -> {
+            dataAnalysisRepository.save(dataAnalysisEntity);
+            if (originalDataEntity != null) {
+                originalDataRepository.save(originalDataEntity);
+            }
+            columnStatisticsRepository.saveAll(columnStatisticsEntities);
+        });
+
+        DataAnalysisResponse response = new DataAnalysisResponse(
                 dataAnalysisEntity.getId(),
                 numberOfRows,
                 numberOfColumns,
                 totalCharacters,
-                columnStatisticsEntities.stream()
-                        .map(e -> new ColumnStatistics(
-                                e.getColumnName(),
-                                e.getNullCount(),
-                                e.getUniqueCount(),
-                                e.isNumeric(),
-                                e.getMinValue(),
-                                e.getMaxValue(),
-                                e.getMeanValue(),
-                                e.getMedianValue(),
-                                e.getStandardDeviation(),
-                                e.isNumeric() ? Arrays.asList(
-                                        e.getPercentile25(),
-                                        e.getPercentile50(),
-                                        e.getPercentile75(),
-                                        e.getPercentile90(),
-                                        e.getPercentile95(),
-                                        e.getPercentile99()
-                                ) : null
-                        ))
-                        .toList(),
+                columnStatistics,
                 createdAt,
-                false
+                false,
+                percentileMode,
+                percentileAccuracy
         );
+        contentHashIndex.put(dedupKey, response);
+        analysisResponseCache.put(response);
+        return response;
     }
 
     /**
-     * Retrieves a previously stored analysis by its unique identifier.
+     * Maps the statistics of one column to its row in {@code column_statistics}.
+     * @param statistics the column statistics
+     * @param dataAnalysis the analysis the column belongs to
+     * @return ColumnStatisticsEntity ready to be saved
+     */
+    private static ColumnStatisticsEntity toColumnStatisticsEntity(ColumnStatistics statistics,
+                                                                   DataAnalysisEntity dataAnalysis) {
+        List<Double> percentiles = statistics.percentiles();
+        return ColumnStatisticsEntity.builder()
+                .dataAnalysis(dataAnalysis)
+                .columnName(statistics.columnName())
+                .nullCount(statistics.nullCount())
+                .uniqueCount(statistics.uniqueCount())
+                .uniqueCountMode(statistics.uniqueCountMode())
+                .isNumeric(statistics.isNumeric())
+                .minValue(statistics.min())
+                .maxValue(statistics.max())
+                .meanValue(statistics.mean())
+                .medianValue(statistics.median())
+                .standardDeviation(statistics.standardDeviation())
+                .skewness(statistics.skewness())
+                .kurtosis(statistics.kurtosis())
+                .percentile25(percentiles == null ? null : percentiles.get(0))
+                .percentile50(percentiles == null ? null : percentiles.get(1))
+                .percentile75(percentiles == null ? null : percentiles.get(2))
+                .percentile90(percentiles == null ? null : percentiles.get(3))
+                .percentile95(percentiles == null ? null : percentiles.get(4))
+                .percentile99(percentiles == null ? null : percentiles.get(5))
+                .build();
+    }
+
+    /**
+     * Runs the per-column statistics phase, on the analysis pool when there are enough numeric
+     * values to outweigh the scheduling cost and on the calling thread otherwise.
+     * @param numberOfColumns number of columns to process
+     * @param numericValueCount total numeric values across all columns
+     * @param action computes the statistics of one column
+     */
+    private void forEachColumn(int numberOfColumns, long numericValueCount, IntConsumer action) {
+        if (numberOfColumns < 2 || numericValueCount < analysisProperties.getParallel().getStatisticsThreshold()) {
+            onAnalysisPool(() -> {
+                for (int c = 0; c < numberOfColumns; c++) {
+                    action.accept(c);
+                }
+            });
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(numberOfColumns);
+        for (int c = 0; c < numberOfColumns; c++) {
+            int column = c;
+            tasks.add(analysisPool.submit(() -> action.accept(column)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Runs CPU-heavy work on the analysis pool when called from a virtual thread, which would
+     * otherwise keep one of the few carrier threads busy for the whole computation and hold
+     * up every other request. Platform threads run the work themselves.
+     * @param work the computation
+     * @return the result of the computation
+     */
+    private <T> T onAnalysisPool(Supplier<T> work) {
+        if (!Thread.currentThread().isVirtual()) {
+            return work.get();
+        }
+        ForkJoinTask<T> task = analysisPool.submit(work::get);
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the analysis pool", e);
+        }
+    }
+
+    private void onAnalysisPool(Runnable work) {
+        onAnalysisPool(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a previously stored analysis by its unique identifier, from the response
+     * cache when it holds it and from the database otherwise.
      * @param id the unique identifier of the analysis to retrieve
      * @return DataAnalysisResponse containing the analysis results
      * @throws NotFoundException if no analysis exists with the given ID
      */
     public DataAnalysisResponse getAnalysisById(Long id) {
 
-        DataAnalysisEntity entity = dataAnalysisRepository.findById(id)
+        DataAnalysisResponse cached = analysisResponseCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long deletionsBefore = deletions.get();
+        DataAnalysisResponse response = toExistingResponse(dataAnalysisRepository.findColumnRowsById(id))
                 .orElseThrow(() -> new NotFoundException("Analysis not found"));
+        analysisResponseCache.put(response);
+        evictIfDeletedSince(deletionsBefore, id);
+        return response;
+    }
 
-        return new DataAnalysisResponse(
-                entity.getId(),
-                entity.getNumberOfRows(),
-                entity.getNumberOfColumns(),
-                entity.getTotalCharacters(),
-                entity.getColumnStatistics().stream()
-                        .map(s -> new ColumnStatistics(
-                                s.getColumnName(),
-                                s.getNullCount(),
-                                s.getUniqueCount(),
-                                s.isNumeric(),
-                                s.getMinValue(),
-                                s.getMaxValue(),
-                                s.getMeanValue(),
-                                s.getMedianValue(),
-                                s.getStandardDeviation(),
-                                s.isNumeric() ? Arrays.asList(
-                                        s.getPercentile25(),
-                                        s.getPercentile50(),
-                                        s.getPercentile75(),
-                                        s.getPercentile90(),
-                                        s.getPercentile95(),
-                                        s.getPercentile99()
-                                ) : null
-                        ))
-                        .toList(),
-                entity.getCreatedAt(),
-                true
-        );
+    /**
+     * Retrieves the raw CSV content an analysis was computed from. Only uploads analyzed
+     * in memory have it stored; streamed and file analyses do not.
+     * @param id the unique identifier of the analysis
+     * @return the content, or empty if none was stored for the analysis
+     */
+    public Optional<String> getOriginalData(Long id) {
+        return originalDataRepository.findById(id)
+                .map(originalData -> CompressedText.decode(originalData.getContent()));
+    }
+
+    /**
+     * Retrieves a previously stored analysis serialized as a downloadable JSON document,
+     * serializing it only when it is not cached yet.
+     * @param id the unique identifier of the analysis to retrieve
+     * @return the pretty-printed JSON document, plain and gzip-compressed
+     * @throws NotFoundException if no analysis exists with the given ID
+     */
+    public AnalysisJsonCache.Document getAnalysisDocument(Long id) {
+        AnalysisJsonCache.Document cached = analysisJsonCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long deletionsBefore = deletions.get();
+        AnalysisJsonCache.Document document = analysisJsonCache.put(getAnalysisById(id));
+        evictIfDeletedSince(deletionsBefore, id);
+        return document;
     }
 
     /**
@@ -436,5 +790,27 @@ public class DataAnalysisService {
         }
 
         dataAnalysisRepository.deleteById(id);
+        // Counted before the caches are cleared, so a read that raced with the delete sees it after caching
+        deletions.incrementAndGet();
+        evict(id);
+    }
+
+    /**
+     * Undoes caching a read if any analysis was deleted since the read started. A read that
+     * loaded the analysis just before its delete committed could otherwise cache it after the
+     * delete cleared the caches, and keep serving it.
+     * @param deletionsBefore the delete count taken before the read
+     * @param id the identifier of the analysis that was read
+     */
+    private void evictIfDeletedSince(long deletionsBefore, Long id) {
+        if (deletions.get() != deletionsBefore) {
+            evict(id);
+        }
+    }
+
+    private void evict(Long id) {
+        contentHashIndex.remove(id);
+        analysisResponseCache.remove(id);
+        analysisJsonCache.remove(id);
     }
 }
@@ -0,0 +1,106 @@
+package com.sujon.spring_data_analysis_api.service.admission;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.exception.PayloadTooLargeException;
+import com.sujon.spring_data_analysis_api.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits analysis requests before their body is read, so that memory use stays
+ * bounded under bursts of uploads.
+ * <p>
+ * At most {@code analysis.admission.max-concurrent-analyses} analyses run at a time,
+ * and the bodies held in memory by the running ones add up to at most
+ * {@code analysis.admission.max-in-flight-bytes}. A request that does not fit is
+ * rejected straight away rather than queued, so a burst cannot pile up waiting threads,
+ * and told to retry after {@code analysis.admission.retry-after}.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestAdmission {
+
+    private final AnalysisProperties analysisProperties;
+
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    private Semaphore analyses;
+    private long maxInFlightBytes;
+
+    @PostConstruct
+    void init() {
+        AnalysisProperties.Admission settings = analysisProperties.getAdmission();
+        analyses = new Semaphore(Math.max(1, settings.getMaxConcurrentAnalyses()));
+        maxInFlightBytes = settings.getMaxInFlightBytes().toBytes();
+    }
+
+    /**
+     * Reserves an analysis slot and room for a request body.
+     * @param bodyBytes the bytes the body will take in memory, 0 if it is not held in memory
+     * @return the permit, to be closed once the request completes
+     * @throws PayloadTooLargeException if the body would not fit even with nothing else in flight
+     * @throws TooManyRequestsException if every slot is taken or the body does not fit right now
+     */
+    public Permit admit(long bodyBytes) {
+        if (bodyBytes > maxInFlightBytes) {
+            throw new PayloadTooLargeException("Upload is larger than the server can accept at once");
+        }
+        if (!analyses.tryAcquire()) {
+            throw busy("Too many analyses are running");
+        }
+        if (!reserve(bodyBytes)) {
+            analyses.release();
+            throw busy("Too many uploads are being analyzed");
+        }
+        return new Permit(bodyBytes);
+    }
+
+    /**
+     * @return the bytes reserved by the permits currently open
+     */
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    private boolean reserve(long bytes) {
+        while (true) {
+            long current = inFlightBytes.get();
+            if (current + bytes > maxInFlightBytes) {
+                return false;
+            }
+            if (inFlightBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private TooManyRequestsException busy(String message) {
+        return new TooManyRequestsException(message, analysisProperties.getAdmission().getRetryAfter());
+    }
+
+    /**
+     * An admitted request's slot and body reservation. Closing it more than once has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                inFlightBytes.addAndGet(-bytes);
+                analyses.release();
+            }
+        }
+    }
+}
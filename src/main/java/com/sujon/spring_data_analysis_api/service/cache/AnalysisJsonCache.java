@@ -0,0 +1,108 @@
+package com.sujon.spring_data_analysis_api.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process cache of the pretty-printed JSON documents served by
+ * {@code GET /api/analysis/{id}/download.json}, so a repeated download is a copy of
+ * bytes that were serialized and compressed once.
+ * <p>
+ * Each document is kept as plain JSON and gzip-compressed, weighted by the bytes
+ * of both, and the least recently used are evicted once they add up to more than
+ * {@code analysis.download-cache.max-weight}. Like the response cache it is
+ * invalidated by the service on delete and publishes {@code cache.*} meters, tagged
+ * {@code cache=analysis-downloads}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisJsonCache implements MeterBinder {
+
+    // Built once so every download shares Jackson's serializer caches
+    private static final ObjectWriter WRITER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build()
+            .writer();
+
+    private final AnalysisProperties analysisProperties;
+
+    private WeightedLruCache<Long, Document> documents;
+
+    /**
+     * A serialized analysis.
+     * @param json the pretty-printed JSON in UTF-8
+     * @param gzip the same bytes gzip-compressed
+     */
+    public record Document(byte[] json, byte[] gzip) {
+    }
+
+    @PostConstruct
+    void init() {
+        documents = new WeightedLruCache<>(analysisProperties.getDownloadCache().getMaxWeight().toBytes(),
+                document -> document.json().length + document.gzip().length);
+    }
+
+    /**
+     * @param id the analysis id
+     * @return the cached document, or null if it is not cached
+     */
+    public Document get(Long id) {
+        return documents.get(id);
+    }
+
+    /**
+     * Serializes and compresses an analysis and caches the result.
+     * @param response the analysis
+     * @return the document
+     * @throws BadRequestException if the analysis cannot be serialized
+     */
+    public Document put(DataAnalysisResponse response) {
+        Document document;
+        try {
+            byte[] json = WRITER.writeValueAsBytes(response);
+            document = new Document(json, gzip(json));
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to generate JSON");
+        }
+        documents.put(response.id(), document);
+        return document;
+    }
+
+    /**
+     * Forgets a deleted analysis.
+     * @param id the analysis id
+     */
+    public void remove(Long id) {
+        documents.remove(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        documents.bindTo(registry, "analysis-downloads", "bytes");
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        // Pretty-printed JSON compresses to a small fraction, so a quarter is rarely outgrown
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package com.sujon.spring_data_analysis_api.service.cache;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of stored analyses by id, consulted before the database by
+ * {@code GET /api/analysis/{id}}.
+ * <p>
+ * Entries are weighted by an estimate of the heap their response takes, which grows
+ * with the number of columns, and the least recently used ones are evicted once
+ * their weights add up to more than {@code analysis.response-cache.max-weight}.
+ * <p>
+ * The service fills the cache on ingest and invalidates it on delete, so like the
+ * dedup index it only sees changes made through this instance. Hits, misses,
+ * evictions, the entry count and the total weight are published as the {@code cache.*}
+ * meters tagged {@code cache=analysis-responses}, under {@code /actuator/metrics}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisResponseCache implements MeterBinder {
+
+    // Rough heap footprint of a response and of each of its columns, excluding the column name
+    private static final long RESPONSE_WEIGHT = 200;
+    private static final long COLUMN_WEIGHT = 360;
+
+    private final AnalysisProperties analysisProperties;
+
+    private WeightedLruCache<Long, DataAnalysisResponse> responses;
+
+    @PostConstruct
+    void init() {
+        responses = new WeightedLruCache<>(analysisProperties.getResponseCache().getMaxWeight().toBytes(),
+                AnalysisResponseCache::weigh);
+    }
+
+    /**
+     * @param id the analysis id
+     * @return the cached response, or null if it is not cached
+     */
+    public DataAnalysisResponse get(Long id) {
+        return responses.get(id);
+    }
+
+    /**
+     * Caches the response of a stored analysis.
+     * @param response the response, stored flagged as already existing
+     */
+    public void put(DataAnalysisResponse response) {
+        responses.put(response.id(), response.asExisting());
+    }
+
+    /**
+     * Forgets a deleted analysis.
+     * @param id the analysis id
+     */
+    public void remove(Long id) {
+        responses.remove(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        responses.bindTo(registry, "analysis-responses", "bytes");
+    }
+
+    /**
+     * @param response an analysis response
+     * @return an estimate of the bytes of heap the response takes
+     */
+    static long weigh(DataAnalysisResponse response) {
+        long weight = RESPONSE_WEIGHT;
+        for (ColumnStatistics column : response.columnStatistics()) {
+            weight += COLUMN_WEIGHT + (column.columnName() == null ? 0 : column.columnName().length());
+        }
+        return weight;
+    }
+}
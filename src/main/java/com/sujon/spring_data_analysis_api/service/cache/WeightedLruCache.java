@@ -0,0 +1,136 @@
+package com.sujon.spring_data_analysis_api.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache bounded by the total weight of its values rather than
+ * their number. A value heavier than the limit on its own is not cached.
+ * <p>
+ * All operations lock the cache, which is cheap next to the database load or
+ * serialization a hit saves.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class WeightedLruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry<V>(V value, long weight) {
+    }
+
+    /**
+     * @param maxWeight the total weight past which the least recently used values are evicted
+     * @param weigher the weight of a value
+     */
+    public WeightedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @param key the key
+     * @return the cached value, or null if it is not cached
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Caches a value, replacing any cached for the same key, and evicts the least
+     * recently used values as needed to stay within the weight limit.
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        remove(key);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, entryWeight));
+        weight += entryWeight;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @param key the key whose value to forget
+     */
+    public synchronized void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    /**
+     * @return the total weight of the cached values
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of cached values
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counts, the size and the weight as the
+     * {@code cache.*} meters Micrometer's own cache binders use.
+     * @param registry the registry to publish to
+     * @param name the value of the {@code cache} tag
+     * @param weightUnit the base unit of the weight
+     */
+    public void bindTo(MeterRegistry registry, String name, String weightUnit) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit")
+                .description("Lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss")
+                .description("Lookups not answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", name)
+                .description("Entries evicted to stay within the weight limit")
+                .register(registry);
+        Gauge.builder("cache.size", this, WeightedLruCache::size)
+                .tags("cache", name)
+                .description("Cached entries")
+                .register(registry);
+        Gauge.builder("cache.weight", this, WeightedLruCache::weight)
+                .tags("cache", name)
+                .description("Total weight of the cached entries")
+                .baseUnit(weightUnit)
+                .register(registry);
+    }
+}
@@ -0,0 +1,128 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Incremental SHA-256 fingerprint of CSV content.
+ * <p>
+ * Characters are fed in chunks as they are read. The digest covers the same
+ * normalized form the content hash has always used: every line trimmed,
+ * blank lines dropped and the remaining lines joined with {@code \n}, encoded
+ * as UTF-8. Lines end at {@code \n} or {@code \r}, so CRLF input folds to the
+ * same hash as LF input.
+ */
+public final class ContentFingerprint {
+
+    private final MessageDigest digest;
+    private final byte[] out = new byte[8 * 1024];
+    private int outLength;
+
+    // Whitespace seen after the last content character of the current line
+    private char[] pending = new char[16];
+    private int pendingLength;
+
+    private boolean lineHasContent;
+    private boolean anyLineWritten;
+    private char highSurrogate;
+
+    public ContentFingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing failed");
+        }
+    }
+
+    /**
+     * Feeds a chunk of raw content.
+     * @param chars buffer holding the chunk
+     * @param offset index of the first character
+     * @param length number of characters
+     */
+    public void update(char[] chars, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c == '\n' || c == '\r') {
+                lineHasContent = false;
+                pendingLength = 0;
+            } else if (c <= ' ') {
+                if (lineHasContent) {
+                    if (pendingLength == pending.length) {
+                        pending = Arrays.copyOf(pending, pendingLength * 2);
+                    }
+                    pending[pendingLength++] = c;
+                }
+            } else {
+                if (!lineHasContent) {
+                    if (anyLineWritten) {
+                        encode('\n');
+                    }
+                    lineHasContent = true;
+                    anyLineWritten = true;
+                }
+                for (int p = 0; p < pendingLength; p++) {
+                    encode(pending[p]);
+                }
+                pendingLength = 0;
+                encode(c);
+            }
+        }
+    }
+
+    /**
+     * Completes the digest.
+     * @return a 64-character hexadecimal SHA-256 hash of the normalized content
+     */
+    public String finish() {
+        if (highSurrogate != 0) {
+            // Unpaired surrogate, encoded the way String.getBytes(UTF_8) does
+            write((byte) '?');
+            highSurrogate = 0;
+        }
+        digest.update(out, 0, outLength);
+        outLength = 0;
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void encode(char c) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                write((byte) (0xF0 | (codePoint >> 18)));
+                write((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                write((byte) (0x80 | (codePoint & 0x3F)));
+                return;
+            }
+            write((byte) '?');
+        }
+        if (c < 0x80) {
+            write((byte) c);
+        } else if (c < 0x800) {
+            write((byte) (0xC0 | (c >> 6)));
+            write((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            write((byte) '?');
+        } else {
+            write((byte) (0xE0 | (c >> 12)));
+            write((byte) (0x80 | ((c >> 6) & 0x3F)));
+            write((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    private void write(byte b) {
+        if (outLength == out.length) {
+            digest.update(out, 0, outLength);
+            outLength = 0;
+        }
+        out[outLength++] = b;
+    }
+}
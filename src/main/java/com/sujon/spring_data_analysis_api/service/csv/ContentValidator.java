@@ -0,0 +1,85 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+
+/**
+ * Checks raw CSV content against the upload rules while it is being read.
+ * <p>
+ * Characters are fed in chunks, on a pass of their own ahead of the lookup
+ * for a stored analysis when the content can be read twice, and in the
+ * chunks the tokenizer reads when it is a stream. The content fails on the
+ * chunk holding the first character that completes a blocked phrase or takes
+ * its UTF-8 size past the limit, before anything after it is read. Blank
+ * content and the cell limit are checked by the record handler as the
+ * content is parsed.
+ */
+public final class ContentValidator {
+
+    private final PhraseMatcher blockedContent;
+    private final long maxBytes;
+
+    private int state = PhraseMatcher.START;
+    private long byteCount;
+    private boolean highSurrogate;
+
+    /**
+     * @param blockedContent phrases the content must not contain
+     * @param maxBytes largest allowed UTF-8 size of the content, {@link Long#MAX_VALUE} for no limit
+     */
+    public ContentValidator(PhraseMatcher blockedContent, long maxBytes) {
+        this.blockedContent = blockedContent;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Checks the next chunk of content.
+     * @param chars buffer holding the chunk
+     * @param offset index of the first character
+     * @param length number of characters
+     * @throws BadRequestException if the chunk completes a blocked phrase or exceeds the size limit
+     */
+    public void update(char[] chars, int offset, int length) {
+        if (!blockedContent.isEmpty()) {
+            state = blockedContent.advance(state, chars, offset, offset + length);
+            String phrase = blockedContent.matchedPhrase(state);
+            if (phrase != null) {
+                throw new BadRequestException("CSV data containing '" + phrase + "' is not allowed");
+            }
+        }
+        if (maxBytes == Long.MAX_VALUE) {
+            return;
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byteCount += utf8Length(chars[i]);
+        }
+        if (byteCount > maxBytes) {
+            throw new BadRequestException("File size exceeds maximum allowed size of "
+                    + maxBytes / (1024 * 1024) + "MB");
+        }
+    }
+
+    /**
+     * UTF-8 bytes added by one character, encoded the way {@code String.getBytes(UTF_8)} does:
+     * a surrogate pair takes four bytes and an unpaired surrogate becomes a one-byte {@code ?}.
+     */
+    private int utf8Length(char c) {
+        if (highSurrogate) {
+            highSurrogate = false;
+            if (Character.isLowSurrogate(c)) {
+                return 3;
+            }
+        }
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (Character.isHighSurrogate(c)) {
+            highSurrogate = true;
+            return 1;
+        }
+        return Character.isLowSurrogate(c) ? 1 : 3;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+/**
+ * Callback receiving line and cell boundaries from {@link CsvTokenizer}.
+ * <p>
+ * Cell ranges point into one of the tokenizer's buffers and are only valid
+ * for the duration of the {@link #cell} call.
+ */
+public interface CsvRecordHandler {
+
+    /**
+     * Called once for every record, including blank lines. A record is one line unless a
+     * quoted cell spans several.
+     * @param lineIndex zero-based index of the record, the header being record 0
+     * @param cellCount number of comma separated cells in the record
+     * @param blank true if the line contains only whitespace
+     * @return true to receive the cells of this line, false to skip them
+     */
+    boolean startRecord(long lineIndex, int cellCount, boolean blank);
+
+    /**
+     * Called for every cell of an accepted line, in column order.
+     * @param column zero-based column index
+     * @param buffer the tokenizer's working buffer, or its scratch buffer for a quoted cell
+     * @param start index of the first character of the cell
+     * @param end index one past the last character of the cell
+     */
+    void cell(int column, char[] buffer, int start, int end);
+
+    /**
+     * Called once after the last line has been delivered.
+     * @param lineCount total number of records in the input
+     */
+    default void endOfInput(long lineCount) {
+    }
+}
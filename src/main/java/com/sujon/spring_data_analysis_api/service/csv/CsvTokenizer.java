@@ -0,0 +1,341 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single-pass, cursor-based RFC 4180 CSV tokenizer.
+ * <p>
+ * Reads the input through a fixed-size character buffer and reports record and
+ * cell boundaries to a {@link CsvRecordHandler} without creating line or row
+ * arrays. Outside quotes, records end at the same terminators as the {@code \R}
+ * regex and cells at every comma, matching {@code split("\\R", -1)} followed by
+ * {@code split(",", -1)}. A record longer than the buffer grows it.
+ * <p>
+ * A cell that starts with a double quote is quoted: commas and line breaks up
+ * to the closing quote belong to the cell and {@code ""} stands for one quote.
+ * The cell is reported without its quotes, from a scratch buffer. Anything
+ * between the closing quote and the next comma is kept as it is, and so is a
+ * quote that does not start a cell, as most CSV readers do. A quote that is
+ * never closed makes the input invalid. Records without quotes take a fast
+ * path that is never slower than plain splitting.
+ * <p>
+ * A vectorized tokenizer skips runs of ordinary characters with a
+ * {@code VectorStructuralIndex} instead of testing them one by one. It needs
+ * {@code --add-modules jdk.incubator.vector} and falls back to the scalar loop
+ * without it.
+ */
+public final class CsvTokenizer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    // Offsets of the commas of the current record, relative to the record start
+    private int[] delimiters = new int[64];
+
+    // Indices of the quoted cells of the current record, in order, and their unquoted text
+    private int[] quotedCells = new int[16];
+    private char[] scratch = new char[256];
+
+    // Skips ordinary characters in bulk, null for the scalar loop
+    private final StructuralIndex structuralIndex;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    public CsvTokenizer(Reader reader, boolean vectorized) {
+        this(reader, DEFAULT_BUFFER_SIZE, vectorized);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this(reader, bufferSize, false);
+    }
+
+    /**
+     * @param reader the input
+     * @param bufferSize initial size of the character buffer
+     * @param vectorized true to use the vector API where {@link #vectorSupported()}, ignored elsewhere
+     */
+    public CsvTokenizer(Reader reader, int bufferSize, boolean vectorized) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(bufferSize, 16)];
+        this.structuralIndex = vectorized && vectorSupported() ? StructuralIndex.vector() : null;
+    }
+
+    /**
+     * @return true if vectorized tokenizers are available in this JVM
+     */
+    public static boolean vectorSupported() {
+        return StructuralIndex.vectorSupported();
+    }
+
+    /**
+     * @return true if this tokenizer skips ordinary characters with the vector API
+     */
+    public boolean isVectorized() {
+        return structuralIndex != null;
+    }
+
+    /**
+     * Walks the whole input once, reporting every record and its cells to the handler.
+     * @param handler receiver of record and cell boundaries
+     * @return the number of records read, counting blank lines
+     * @throws IOException if the underlying reader fails
+     * @throws BadRequestException if a quoted cell is never closed
+     */
+    public long tokenize(CsvRecordHandler handler) throws IOException {
+        long lineIndex = 0;
+        while (true) {
+            int delimiterCount = 0;
+            int quotedCount = 0;
+            boolean blank = true;
+            boolean terminated = false;
+            int i = position;
+
+            while (true) {
+                if (i == limit) {
+                    int offset = i - position;
+                    if (!fill()) {
+                        i = position + offset;
+                        break;
+                    }
+                    i = position + offset;
+                    continue;
+                }
+                char c = buffer[i];
+                if (c > ',' && c < '\u0085') {
+                    // Digits, letters and most punctuation: not a delimiter, line break, quote or whitespace
+                    blank = false;
+                    if (structuralIndex != null) {
+                        i = structuralIndex.next(buffer, i + 1, limit);
+                        continue;
+                    }
+                } else if (c == ',') {
+                    if (delimiterCount == delimiters.length) {
+                        delimiters = Arrays.copyOf(delimiters, delimiterCount * 2);
+                    }
+                    delimiters[delimiterCount++] = i - position;
+                    blank = false;
+                } else if (isLineBreak(c)) {
+                    terminated = true;
+                    break;
+                } else if (c == '"' && i - position == cellStart(delimiterCount)) {
+                    if (quotedCount == quotedCells.length) {
+                        quotedCells = Arrays.copyOf(quotedCells, quotedCount * 2);
+                    }
+                    quotedCells[quotedCount++] = delimiterCount;
+                    blank = false;
+                    i = skipQuoted(i + 1);
+                    continue;
+                } else if (blank && !isWhitespace(c)) {
+                    blank = false;
+                }
+                i++;
+            }
+
+            int lineStart = position;
+            int lineEnd = i;
+            if (handler.startRecord(lineIndex, delimiterCount + 1, blank)) {
+                if (quotedCount == 0) {
+                    int cellStart = lineStart;
+                    for (int d = 0; d < delimiterCount; d++) {
+                        int comma = lineStart + delimiters[d];
+                        handler.cell(d, buffer, cellStart, comma);
+                        cellStart = comma + 1;
+                    }
+                    handler.cell(delimiterCount, buffer, cellStart, lineEnd);
+                } else {
+                    deliverQuoted(handler, delimiterCount, quotedCount, lineStart, lineEnd);
+                }
+            }
+            lineIndex++;
+
+            if (!terminated) {
+                handler.endOfInput(lineIndex);
+                return lineIndex;
+            }
+            position = consumeLineBreak(lineEnd);
+        }
+    }
+
+    /**
+     * Reports the cells of a record with quoted cells, unquoting those into the scratch buffer.
+     */
+    private void deliverQuoted(CsvRecordHandler handler, int delimiterCount, int quotedCount,
+                               int lineStart, int lineEnd) {
+        int q = 0;
+        for (int d = 0; d <= delimiterCount; d++) {
+            int start = lineStart + cellStart(d);
+            int end = d < delimiterCount ? lineStart + delimiters[d] : lineEnd;
+            if (q < quotedCount && quotedCells[q] == d) {
+                q++;
+                // unquote may replace the scratch buffer, so it runs before the buffer is passed on
+                int length = unquote(start, end);
+                handler.cell(d, scratch, 0, length);
+            } else {
+                handler.cell(d, buffer, start, end);
+            }
+        }
+    }
+
+    /**
+     * @return the offset of a cell's first character from the record start
+     */
+    private int cellStart(int cell) {
+        return cell == 0 ? 0 : delimiters[cell - 1] + 1;
+    }
+
+    /**
+     * Skips the rest of a quoted cell, reading more input as needed.
+     * @param index index just past the opening quote
+     * @return the index just past the closing quote
+     */
+    private int skipQuoted(int index) throws IOException {
+        int i = index;
+        while (true) {
+            if (i == limit) {
+                int offset = i - position;
+                boolean more = fill();
+                i = position + offset;
+                if (!more) {
+                    throw new BadRequestException("Invalid CSV");
+                }
+                continue;
+            }
+            if (buffer[i] != '"') {
+                i++;
+                continue;
+            }
+            // A quote closes the cell unless another one follows it
+            if (i + 1 == limit) {
+                int offset = i - position;
+                fill();
+                i = position + offset;
+            }
+            if (i + 1 < limit && buffer[i + 1] == '"') {
+                i += 2;
+                continue;
+            }
+            return i + 1;
+        }
+    }
+
+    /**
+     * Copies a quoted cell into the scratch buffer without its quotes, turning {@code ""} into one quote.
+     * @param start index of the opening quote
+     * @param end index one past the last character of the cell
+     * @return the length of the unquoted text
+     */
+    private int unquote(int start, int end) {
+        if (scratch.length < end - start) {
+            scratch = new char[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        boolean inQuotes = true;
+        for (int i = start + 1; i < end; i++) {
+            char c = buffer[i];
+            if (inQuotes && c == '"') {
+                if (i + 1 < end && buffer[i + 1] == '"') {
+                    scratch[length++] = '"';
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else {
+                scratch[length++] = c;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Skips the line terminator at the given index, treating CR LF as one terminator.
+     * @return the index of the first character of the next line
+     */
+    private int consumeLineBreak(int index) throws IOException {
+        if (buffer[index] == '\r') {
+            if (index + 1 == limit) {
+                int offset = index - position;
+                fill();
+                index = position + offset;
+            }
+            if (index + 1 < limit && buffer[index + 1] == '\n') {
+                return index + 2;
+            }
+        }
+        return index + 1;
+    }
+
+    /**
+     * Moves the unread tail of the buffer to the front and reads more input,
+     * growing the buffer when a single line fills it.
+     * @return false once the reader is exhausted
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (structuralIndex != null) {
+            structuralIndex.invalidate();
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read;
+        do {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Finds the start of the line following the first line terminator at or after an index,
+     * treating CR LF as one terminator. Used to cut text without quotes into chunks of whole
+     * records; in quoted text a line break may be inside a cell.
+     * @param text the text to search
+     * @param from index to start searching at
+     * @return the index just past the terminator, or the text length if there is none
+     */
+    public static int nextLineStart(CharSequence text, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (isLineBreak(c)) {
+                return c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n' ? i + 2 : i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns true for the characters matched by the {@code \R} regex.
+     */
+    static boolean isLineBreak(char c) {
+        return c <= '\r' ? c >= '\n' : (c == '\u0085' || c == '\u2028' || c == '\u2029');
+    }
+
+    /**
+     * Same test as {@link Character#isWhitespace(char)} with a fast path for printable ASCII.
+     */
+    public static boolean isWhitespace(char c) {
+        return (c <= ' ' || c >= '\u007F') && Character.isWhitespace(c);
+    }
+}
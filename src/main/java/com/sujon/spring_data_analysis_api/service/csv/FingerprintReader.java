@@ -0,0 +1,79 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that counts and fingerprints every character passing through it,
+ * so content that is only read once can still be hashed and measured.
+ */
+public final class FingerprintReader extends FilterReader {
+
+    private final ContentFingerprint fingerprint;
+    private long characterCount;
+
+    public FingerprintReader(Reader in) {
+        this(in, new ContentFingerprint());
+    }
+
+    /**
+     * @param in the reader to wrap
+     * @param fingerprint the fingerprint to feed, for callers that finish it themselves
+     */
+    public FingerprintReader(Reader in, ContentFingerprint fingerprint) {
+        super(in);
+        this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] single = new char[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0) {
+            fingerprint.update(buffer, offset, read);
+            characterCount += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported while fingerprinting");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark is not supported while fingerprinting");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset is not supported while fingerprinting");
+    }
+
+    /**
+     * @return number of UTF-16 characters read so far
+     */
+    public long getCharacterCount() {
+        return characterCount;
+    }
+
+    /**
+     * Completes the fingerprint, to be called once the input is exhausted.
+     * @return the SHA-256 content hash of everything read
+     */
+    public String getContentHash() {
+        return fingerprint.finish();
+    }
+}
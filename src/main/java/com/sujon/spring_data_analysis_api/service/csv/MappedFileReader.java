@@ -0,0 +1,134 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+/**
+ * Reader that decodes a UTF-8 file from a memory mapping.
+ * <p>
+ * The file is mapped with {@link FileChannel#map} in regions of at most 1GB, so
+ * its bytes come straight from the page cache without read calls and are never
+ * held on the heap as a whole. They pass through a small window that stays in
+ * the CPU cache, since the UTF-8 decoder only takes its fast ASCII path on heap
+ * buffers, and are decoded into the caller's buffer. Malformed input is replaced
+ * the way an {@link java.io.InputStreamReader} does, so a file reads as the same
+ * characters either way.
+ * <p>
+ * An optional listener is told how many bytes of the file have been read each
+ * time the window is refilled, for reporting progress.
+ * <p>
+ * Closing the reader closes the channel. The mappings themselves are released by
+ * the garbage collector, which does not keep the file from being deleted on Linux.
+ */
+public final class MappedFileReader extends Reader {
+
+    private static final long MAX_REGION_SIZE = 1L << 30;
+    private static final int WINDOW_SIZE = 16 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private final LongConsumer progress;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    // Bytes copied out of the mapping but not decoded yet
+    private final ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE).flip();
+    private boolean endOfInput;
+
+    // Second half of a surrogate pair decoded when the caller had room for one character
+    private final CharBuffer pending = CharBuffer.allocate(2).flip();
+
+    public MappedFileReader(FileChannel channel) throws IOException {
+        this(channel, bytesRead -> {
+        });
+    }
+
+    /**
+     * @param channel an open channel on the file, read from its start
+     * @param progress receives the number of bytes read so far
+     */
+    public MappedFileReader(FileChannel channel, LongConsumer progress) throws IOException {
+        this(channel, MAX_REGION_SIZE, progress);
+    }
+
+    /**
+     * @param channel an open channel on the file, read from its start
+     * @param regionSize the largest part of the file mapped at a time
+     * @param progress receives the number of bytes read so far
+     */
+    MappedFileReader(FileChannel channel, long regionSize, LongConsumer progress) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.regionSize = regionSize;
+        this.progress = progress;
+        this.region = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(regionSize, size));
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (pending.hasRemaining()) {
+            buffer[offset] = pending.get();
+            return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        while (true) {
+            CoderResult result = decoder.decode(window, out, endOfInput);
+            int read = out.position() - offset;
+            if (read > 0) {
+                return read;
+            }
+            if (result.isOverflow()) {
+                // Room for one character, but the next code point needs a surrogate pair
+                pending.clear();
+                decoder.decode(window, pending, endOfInput);
+                pending.flip();
+                buffer[offset] = pending.get();
+                return 1;
+            }
+            if (endOfInput) {
+                return -1;
+            }
+            refill();
+        }
+    }
+
+    /**
+     * Moves the undecoded bytes to the front of the window and copies in as many
+     * more from the mapping as fit, mapping the next region when needed.
+     */
+    private void refill() throws IOException {
+        window.compact();
+        if (!region.hasRemaining() && regionStart + region.limit() < size) {
+            regionStart += region.limit();
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+        }
+        int count = Math.min(window.remaining(), region.remaining());
+        region.get(window.array(), window.position(), count);
+        window.position(window.position() + count);
+        window.flip();
+        endOfInput = !region.hasRemaining() && regionStart + region.limit() == size;
+        progress.accept(regionStart + region.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,236 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+/**
+ * Exception-free parser for numeric cells, working directly on a character range.
+ * <p>
+ * Accepts exactly the strings {@link Double#parseDouble(String)} accepts once
+ * trimmed, and returns the same value, but reports text with the
+ * {@link #NOT_A_NUMBER} sentinel instead of throwing. Integers and decimals
+ * with at most 15 significant digits and a small exponent are converted with
+ * one exact multiplication or division, which is correctly rounded; longer
+ * inputs are validated here and then handed to the JDK's correctly rounded
+ * conversion, which can no longer fail.
+ */
+public final class NumberParser {
+
+    /**
+     * Returned for text that is not a number. A NaN with its own payload, so it is
+     * never confused with the {@code NaN} a cell containing "NaN" parses to.
+     * Test results with {@link #isNumber(double)}.
+     */
+    public static final double NOT_A_NUMBER = Double.longBitsToDouble(0x7FF8_0000_0000_0BADL);
+
+    private static final long NOT_A_NUMBER_BITS = Double.doubleToRawLongBits(NOT_A_NUMBER);
+
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * @param parsed a value returned by {@link #parse}
+     * @return false if the value is the {@link #NOT_A_NUMBER} sentinel
+     */
+    public static boolean isNumber(double parsed) {
+        return Double.doubleToRawLongBits(parsed) != NOT_A_NUMBER_BITS;
+    }
+
+    /**
+     * Parses a trimmed character range.
+     * @param chars buffer holding the value
+     * @param start index of the first character
+     * @param end index one past the last character
+     * @return the parsed value, or {@link #NOT_A_NUMBER} if the range is not a number
+     */
+    public static double parse(char[] chars, int start, int end) {
+        int i = start;
+        if (i == end) {
+            return NOT_A_NUMBER;
+        }
+
+        boolean negative = false;
+        char c = chars[i];
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == end) {
+                return NOT_A_NUMBER;
+            }
+            c = chars[i];
+        }
+
+        if (c == 'N' || c == 'I') {
+            return parseSpecial(chars, i, end, negative);
+        }
+        if (c == '0' && i + 1 < end && (chars[i + 1] == 'x' || chars[i + 1] == 'X')) {
+            return isHexFloat(chars, i + 2, end) ? fallback(chars, start, end) : NOT_A_NUMBER;
+        }
+
+        // Integer part and fraction, keeping up to 19 significant digits in a long
+        long mantissa = 0;
+        int significantDigits = 0;
+        int droppedDigits = 0;
+        int fractionDigits = 0;
+        boolean anyDigit = false;
+
+        while (i < end && (c = chars[i]) >= '0' && c <= '9') {
+            anyDigit = true;
+            if (significantDigits < 19) {
+                if (mantissa != 0 || c != '0') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    significantDigits++;
+                }
+            } else {
+                droppedDigits++;
+            }
+            i++;
+        }
+        if (i < end && chars[i] == '.') {
+            i++;
+            while (i < end && (c = chars[i]) >= '0' && c <= '9') {
+                anyDigit = true;
+                if (significantDigits < 19) {
+                    if (mantissa != 0 || c != '0') {
+                        mantissa = mantissa * 10 + (c - '0');
+                        significantDigits++;
+                    }
+                    fractionDigits++;
+                }
+                i++;
+            }
+        }
+        if (!anyDigit) {
+            return NOT_A_NUMBER;
+        }
+
+        int exponent = 0;
+        boolean exponentOverflow = false;
+        if (i < end && ((c = chars[i]) == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && ((c = chars[i]) == '-' || c == '+')) {
+                negativeExponent = c == '-';
+                i++;
+            }
+            int exponentStart = i;
+            while (i < end && (c = chars[i]) >= '0' && c <= '9') {
+                if (exponent < 100_000) {
+                    exponent = exponent * 10 + (c - '0');
+                } else {
+                    exponentOverflow = true;
+                }
+                i++;
+            }
+            if (i == exponentStart) {
+                return NOT_A_NUMBER;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (i < end && isTypeSuffix(chars[i])) {
+            i++;
+        }
+        if (i != end) {
+            return NOT_A_NUMBER;
+        }
+
+        if (mantissa == 0 && !exponentOverflow) {
+            return negative ? -0.0 : 0.0;
+        }
+
+        int exponent10 = exponent + droppedDigits - fractionDigits;
+        if (!exponentOverflow && significantDigits <= MAX_FAST_DIGITS && droppedDigits == 0) {
+            double value;
+            if (exponent10 == 0) {
+                value = mantissa;
+            } else if (exponent10 > 0 && exponent10 < POWERS_OF_TEN.length) {
+                value = mantissa * POWERS_OF_TEN[exponent10];
+            } else if (exponent10 < 0 && -exponent10 < POWERS_OF_TEN.length) {
+                value = mantissa / POWERS_OF_TEN[-exponent10];
+            } else {
+                return fallback(chars, start, end);
+            }
+            return negative ? -value : value;
+        }
+        return fallback(chars, start, end);
+    }
+
+    /**
+     * Handles the {@code NaN} and {@code Infinity} literals, which take no type suffix.
+     */
+    private static double parseSpecial(char[] chars, int i, int end, boolean negative) {
+        if (matches(chars, i, end, "NaN")) {
+            return Double.NaN;
+        }
+        if (matches(chars, i, end, "Infinity")) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return NOT_A_NUMBER;
+    }
+
+    /**
+     * Validates the remainder of a hexadecimal floating point literal after {@code 0x}:
+     * hex digits with an optional point, a mandatory binary exponent and an optional suffix.
+     */
+    private static boolean isHexFloat(char[] chars, int i, int end) {
+        boolean anyDigit = false;
+        while (i < end && Character.digit(chars[i], 16) >= 0 && chars[i] < 0x80) {
+            anyDigit = true;
+            i++;
+        }
+        if (i < end && chars[i] == '.') {
+            i++;
+            while (i < end && Character.digit(chars[i], 16) >= 0 && chars[i] < 0x80) {
+                anyDigit = true;
+                i++;
+            }
+        }
+        if (!anyDigit || i == end || (chars[i] != 'p' && chars[i] != 'P')) {
+            return false;
+        }
+        i++;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            i++;
+        }
+        int exponentStart = i;
+        while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+            i++;
+        }
+        if (i == exponentStart) {
+            return false;
+        }
+        if (i < end && isTypeSuffix(chars[i])) {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isTypeSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    private static boolean matches(char[] chars, int i, int end, String literal) {
+        if (end - i != literal.length()) {
+            return false;
+        }
+        for (int k = 0; k < literal.length(); k++) {
+            if (chars[i + k] != literal.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Correctly rounded conversion for inputs already known to be valid.
+     */
+    private static double fallback(char[] chars, int start, int end) {
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+}
@@ -0,0 +1,159 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton finding any of a fixed set of phrases in a stream of characters.
+ * <p>
+ * The trie of the phrases is compiled into a complete deterministic automaton,
+ * so each character costs one table lookup whatever the number of phrases,
+ * and the state carries over between chunks, so a phrase split across two
+ * reads is still found. Characters that occur in no phrase share one column
+ * of the table. While in the start state, characters that cannot begin a
+ * phrase are skipped without touching the table, which is most of the input.
+ * Matching is exact and case-sensitive, like {@link String#contains}.
+ */
+public final class PhraseMatcher {
+
+    /** State before any character has been read. */
+    public static final int START = 0;
+
+    private final List<String> phrases;
+
+    // Column of the transition table for each character, 0 for characters in no phrase
+    private final char[] classes;
+    private final boolean[] startsPhrase;
+    private final int width;
+
+    // Row offsets of the next state, stored bitwise negated when a phrase ends at that state
+    private final int[] transitions;
+
+    // Index of a phrase ending at each state, -1 if none
+    private final int[] matches;
+
+    /**
+     * @param phrases the phrases to look for, none of them empty
+     */
+    public PhraseMatcher(List<String> phrases) {
+        this.phrases = List.copyOf(phrases);
+        this.classes = new char[Character.MAX_VALUE + 1];
+        this.startsPhrase = new boolean[Character.MAX_VALUE + 1];
+        int classCount = 1;
+        int maxStates = 1;
+        for (String phrase : this.phrases) {
+            if (phrase.isEmpty()) {
+                throw new IllegalArgumentException("Blocked content phrases must not be empty");
+            }
+            for (int i = 0; i < phrase.length(); i++) {
+                if (classes[phrase.charAt(i)] == 0) {
+                    classes[phrase.charAt(i)] = (char) classCount++;
+                }
+            }
+            startsPhrase[phrase.charAt(0)] = true;
+            maxStates += phrase.length();
+        }
+        this.width = classCount;
+
+        // Trie, 0 meaning no edge since the start state is never a child
+        int[] trie = new int[maxStates * width];
+        int[] found = new int[maxStates];
+        Arrays.fill(found, -1);
+        int states = 1;
+        for (int p = 0; p < this.phrases.size(); p++) {
+            String phrase = this.phrases.get(p);
+            int state = START;
+            for (int i = 0; i < phrase.length(); i++) {
+                int slot = state * width + classes[phrase.charAt(i)];
+                if (trie[slot] == 0) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            if (found[state] < 0) {
+                found[state] = p;
+            }
+        }
+
+        // Breadth-first over the trie: a missing edge follows the failure link, which is
+        // already complete for every shallower state
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < width; c++) {
+            int child = trie[c];
+            if (child != 0) {
+                failure[child] = START;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            if (found[state] < 0) {
+                found[state] = found[failure[state]];
+            }
+            for (int c = 0; c < width; c++) {
+                int slot = state * width + c;
+                int child = trie[slot];
+                if (child != 0) {
+                    failure[child] = trie[failure[state] * width + c];
+                    queue.add(child);
+                } else {
+                    trie[slot] = trie[failure[state] * width + c];
+                }
+            }
+        }
+
+        this.transitions = new int[states * width];
+        for (int slot = 0; slot < transitions.length; slot++) {
+            int target = trie[slot];
+            transitions[slot] = found[target] < 0 ? target * width : ~(target * width);
+        }
+        this.matches = Arrays.copyOf(found, states);
+    }
+
+    /**
+     * @return true if there are no phrases, so nothing can match
+     */
+    public boolean isEmpty() {
+        return phrases.isEmpty();
+    }
+
+    /**
+     * Advances over a range of characters, stopping at the first character that completes a phrase.
+     * @param state the state after the previous characters, {@link #START} at the beginning of the input
+     * @param chars buffer holding the characters
+     * @param start index of the first character
+     * @param end index one past the last character
+     * @return the state after the last character read, a matching state if a phrase was found
+     */
+    public int advance(int state, char[] chars, int start, int end) {
+        if (state < 0) {
+            return state;
+        }
+        for (int i = start; i < end; i++) {
+            if (state == START) {
+                // Independent loads with no state to carry, much cheaper than the table walk
+                while (!startsPhrase[chars[i]]) {
+                    if (++i == end) {
+                        return START;
+                    }
+                }
+            }
+            state = transitions[state + classes[chars[i]]];
+            if (state < 0) {
+                return state;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @param state a state returned by {@link #advance}
+     * @return the phrase that ends at this state, or null if none does
+     */
+    public String matchedPhrase(int state) {
+        return state < 0 ? phrases.get(matches[~state / width]) : null;
+    }
+}
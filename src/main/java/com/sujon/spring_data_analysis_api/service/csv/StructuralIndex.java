@@ -0,0 +1,78 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Finds the next structural character in a buffer for {@link CsvTokenizer}.
+ * <p>
+ * A structural character is one the tokenizer's per-character loop has to look
+ * at: a comma, quote, line break, whitespace or control character, or anything
+ * outside {@code '-'..'\u0084'}. Runs of ordinary characters between them can be
+ * skipped in bulk.
+ */
+interface StructuralIndex {
+
+    /**
+     * @param buffer the tokenizer's working buffer
+     * @param from index to start searching at
+     * @param to index to stop searching at
+     * @return the index of the first structural character in the range, or {@code to} if there is none
+     */
+    int next(char[] buffer, int from, int to);
+
+    /**
+     * Drops anything computed for the buffer, called whenever its contents move.
+     */
+    void invalidate();
+
+    /**
+     * @return true if the {@code jdk.incubator.vector} module is present and the CPU has vector
+     * registers wide enough to make {@code VectorStructuralIndex} pay off
+     */
+    static boolean vectorSupported() {
+        return VectorSupport.CONSTRUCTOR != null;
+    }
+
+    /**
+     * @return a new index built with the vector API, only to be called where {@link #vectorSupported()}
+     */
+    static StructuralIndex vector() {
+        try {
+            return VectorSupport.CONSTRUCTOR.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Vector structural index could not be created", e);
+        }
+    }
+
+    /**
+     * Loads {@code VectorStructuralIndex} by name. It is compiled on its own against the
+     * incubating module, in {@code src/vector}, so the rest of the code compiles without it,
+     * and it is only loaded when the module is present.
+     */
+    final class VectorSupport {
+
+        static final Constructor<? extends StructuralIndex> CONSTRUCTOR = load();
+
+        private VectorSupport() {
+        }
+
+        private static Constructor<? extends StructuralIndex> load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                Class<? extends StructuralIndex> type = Class.forName(
+                                StructuralIndex.class.getPackageName() + ".VectorStructuralIndex",
+                                true, StructuralIndex.class.getClassLoader())
+                        .asSubclass(StructuralIndex.class);
+                if (!(boolean) type.getDeclaredMethod("isUsable").invoke(null)) {
+                    return null;
+                }
+                return type.getDeclaredConstructor();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not on the class path, so the scalar loop is used
+                return null;
+            }
+        }
+    }
+}
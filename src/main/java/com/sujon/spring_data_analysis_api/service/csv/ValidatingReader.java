@@ -0,0 +1,54 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that passes every chunk it reads through a {@link ContentValidator}
+ * before handing it on, so invalid content fails as soon as it is read.
+ */
+public final class ValidatingReader extends FilterReader {
+
+    private final ContentValidator validator;
+
+    public ValidatingReader(Reader in, ContentValidator validator) {
+        super(in);
+        this.validator = validator;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] single = new char[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0) {
+            validator.update(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported while validating");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark is not supported while validating");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset is not supported while validating");
+    }
+}
@@ -0,0 +1,50 @@
+package com.sujon.spring_data_analysis_api.service.dedup;
+
+/**
+ * Fixed-size Bloom filter over keys that are already uniformly distributed hashes.
+ * <p>
+ * Each key is given as two 64-bit halves, combined into the bit positions by
+ * double hashing ({@code h1 + i * h2}), so no further hashing is needed. A
+ * negative answer is always right; a positive one is wrong with roughly the
+ * configured probability while no more than the expected number of keys have
+ * been added, and more often past it.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate probability of a false positive at that many keys
+     */
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(combined, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+            combined += h2;
+        }
+    }
+
+    boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(combined, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package com.sujon.spring_data_analysis_api.service.dedup;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process index of stored content hashes, consulted before the database on every ingest.
+ * <p>
+ * Analyses are indexed by their {@link DedupKey}, the content hash combined with the
+ * percentile options, so content is only matched with an analysis profiled the same way.
+ * A Bloom filter holds every stored key, so content that was never analyzed is
+ * recognized without a query. The most recently stored or matched analyses are
+ * also kept in an LRU map from key to their response, so a repeated
+ * upload is answered without loading the entity. A key the filter knows but
+ * the map does not still has to be looked up in the database.
+ * <p>
+ * The index is filled from the database at startup and kept in sync by the
+ * service on save and delete. It only sees changes made through this instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentHashIndex {
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final AnalysisProperties analysisProperties;
+
+    private BloomFilter knownHashes;
+    private long capacity;
+    private long size;
+    private Map<String, DataAnalysisResponse> recent;
+
+    @PostConstruct
+    void load() {
+        AnalysisProperties.Dedup dedup = analysisProperties.getDedup();
+        int cacheSize = dedup.getCacheSize();
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DataAnalysisResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        rebuild(dedup.getExpectedHashes());
+    }
+
+    /**
+     * @param dedupKey a hexadecimal dedup key
+     * @return false if no analysis with this key is stored, true if one may be
+     */
+    public synchronized boolean mightContain(String dedupKey) {
+        return knownHashes.mightContain(high(dedupKey), low(dedupKey));
+    }
+
+    /**
+     * @param dedupKey a hexadecimal dedup key
+     * @return the cached response of the analysis with this key, or null if it is not cached
+     */
+    public synchronized DataAnalysisResponse get(String dedupKey) {
+        return recent.get(dedupKey);
+    }
+
+    /**
+     * Records a stored analysis.
+     * @param dedupKey the dedup key of the analysis
+     * @param response the response of the analysis
+     */
+    public synchronized void put(String dedupKey, DataAnalysisResponse response) {
+        recent.put(dedupKey, response.asExisting());
+        long high = high(dedupKey);
+        long low = low(dedupKey);
+        if (knownHashes.mightContain(high, low)) {
+            return;
+        }
+        knownHashes.put(high, low);
+        if (++size > capacity) {
+            // Past its capacity the filter answers yes too often, so it is rebuilt twice as large
+            rebuild(capacity * 2);
+        }
+    }
+
+    /**
+     * Forgets the cached response of a deleted analysis. Its key stays in the Bloom filter,
+     * which only costs a database lookup if the same content is uploaded again.
+     * @param id the identifier of the deleted analysis
+     */
+    public synchronized void remove(Long id) {
+        recent.values().removeIf(response -> response.id().equals(id));
+    }
+
+    /**
+     * Drops everything and reloads the stored keys, for when the table was changed
+     * around the service.
+     */
+    public synchronized void clear() {
+        recent.clear();
+        rebuild(analysisProperties.getDedup().getExpectedHashes());
+    }
+
+    private synchronized void rebuild(long minimumCapacity) {
+        List<String> keys = dataAnalysisRepository.findAllDedupKeys();
+        capacity = Math.max(minimumCapacity, 2L * keys.size());
+        knownHashes = new BloomFilter(capacity, analysisProperties.getDedup().getFalsePositiveRate());
+        for (String key : keys) {
+            knownHashes.put(high(key), low(key));
+        }
+        size = keys.size();
+    }
+
+    private static long high(String dedupKey) {
+        return Long.parseUnsignedLong(dedupKey, 0, 16, 16);
+    }
+
+    private static long low(String dedupKey) {
+        return Long.parseUnsignedLong(dedupKey, 16, 32, 16);
+    }
+}
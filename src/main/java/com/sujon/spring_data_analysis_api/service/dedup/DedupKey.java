@@ -0,0 +1,42 @@
+package com.sujon.spring_data_analysis_api.service.dedup;
+
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Key an analysis is deduplicated on: its content and the options it was profiled with.
+ * <p>
+ * The same content analyzed with exact percentiles, or with approximate percentiles at
+ * another accuracy, gives different statistics, so each is stored and matched on its own.
+ * An exact analysis is keyed by its content hash alone; an approximate one by the SHA-256
+ * of the content hash, the mode and the accuracy. Both are 64 hexadecimal characters.
+ */
+public final class DedupKey {
+
+    private DedupKey() {
+    }
+
+    /**
+     * @param contentHash the SHA-256 hash of the normalized content
+     * @param options how numeric columns are profiled
+     * @return the hexadecimal dedup key of the analysis
+     */
+    public static String of(String contentHash, AnalysisOptions options) {
+        if (options.percentileMode() == PercentileMode.EXACT) {
+            return contentHash;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String key = contentHash + '\n' + options.percentileMode().getParameter()
+                    + '\n' + options.percentileAccuracy();
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing failed");
+        }
+    }
+}
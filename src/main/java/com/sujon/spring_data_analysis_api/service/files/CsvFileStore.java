@@ -0,0 +1,174 @@
+package com.sujon.spring_data_analysis_api.service.files;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+import com.sujon.spring_data_analysis_api.exception.NotFoundException;
+import com.sujon.spring_data_analysis_api.exception.PayloadTooLargeException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Locates the files CSV content is analyzed from: uploads spooled to a temporary
+ * file, and files already on the server in the configured import directory.
+ * <p>
+ * Spooled files are meant to be deleted by the caller as soon as the analysis is
+ * done. Each instance spools into its own subdirectory of the spool directory and holds
+ * a lock on it while it runs, so the spool directory can be shared: at startup only
+ * the subdirectories of instances that no longer hold their lock are deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class CsvFileStore {
+
+    private static final String SPOOL_PREFIX = "upload-";
+    private static final String INSTANCE_PREFIX = "instance-";
+    private static final String LOCK_FILE = ".lock";
+
+    // File locks are held per JVM, so instances in one JVM take turns at startup
+    private static final Object STARTUP = new Object();
+
+    private final AnalysisProperties analysisProperties;
+
+    private Path spoolDirectory;
+    private Path importDirectory;
+    private DataSize maxSpoolSize;
+    private FileChannel instanceLockChannel;
+
+    @PostConstruct
+    void init() throws IOException {
+        AnalysisProperties.FileIngest settings = analysisProperties.getFileIngest();
+        Path root = Files.createDirectories(settings.getSpoolDirectory());
+        synchronized (STARTUP) {
+            // Held while sweeping and until this instance holds the lock of its own directory,
+            // so another instance never sees a directory between its creation and its lock
+            try (FileChannel rootLockChannel = FileChannel.open(root.resolve(LOCK_FILE), CREATE, WRITE);
+                 FileLock ignored = rootLockChannel.lock()) {
+                deleteAbandonedDirectories(root);
+                spoolDirectory = Files.createTempDirectory(root, INSTANCE_PREFIX);
+                instanceLockChannel = FileChannel.open(spoolDirectory.resolve(LOCK_FILE), CREATE, WRITE);
+                instanceLockChannel.lock();
+            }
+        }
+        maxSpoolSize = settings.getMaxSpoolSize();
+        importDirectory = settings.getImportDirectory() == null ? null : settings.getImportDirectory().toRealPath();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        instanceLockChannel.close();
+        FileSystemUtils.deleteRecursively(spoolDirectory);
+    }
+
+    /**
+     * Writes a request body to a new file in this instance's spool directory.
+     * @param body the request body stream
+     * @return the spooled file, to be passed to {@link #delete} once analyzed
+     * @throws PayloadTooLargeException if the body is longer than {@code analysis.file-ingest.max-spool-size}
+     * @throws BadRequestException if the body cannot be read or written
+     */
+    public Path spool(InputStream body) {
+        long limit = maxSpoolSize.toBytes();
+        Path file = null;
+        boolean spooled = false;
+        try {
+            file = Files.createTempFile(spoolDirectory, SPOOL_PREFIX, ".csv");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                long written = 0;
+                for (int read; (read = body.read(buffer)) != -1; ) {
+                    written += read;
+                    if (written > limit) {
+                        throw new PayloadTooLargeException("Upload exceeds the maximum size of " + maxSpoolSize);
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            spooled = true;
+            return file;
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read CSV data");
+        } finally {
+            if (!spooled && file != null) {
+                delete(file);
+            }
+        }
+    }
+
+    /**
+     * Deletes a spooled file. A file that cannot be deleted now is left for the startup cleanup.
+     * @param file a file returned by {@link #spool}
+     */
+    public void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Deleted with the rest of this instance's directory on shutdown or at a later startup
+        }
+    }
+
+    /**
+     * Deletes the spool directories of instances that have stopped, whose lock can be taken.
+     * @param root the shared spool directory
+     */
+    private static void deleteAbandonedDirectories(Path root) throws IOException {
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, INSTANCE_PREFIX + "*")) {
+            for (Path directory : directories) {
+                boolean abandoned;
+                try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), WRITE);
+                     FileLock lock = channel.tryLock()) {
+                    abandoned = lock != null;
+                } catch (NoSuchFileException e) {
+                    // Crashed before taking its lock; nobody else can be using it while the root is locked
+                    abandoned = true;
+                } catch (OverlappingFileLockException e) {
+                    abandoned = false;
+                }
+                if (abandoned) {
+                    FileSystemUtils.deleteRecursively(directory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a file name against the import directory. Names that lead outside the
+     * directory, including through symbolic links, are treated as missing.
+     * @param name the file name, possibly with subdirectories
+     * @return the real path of the file
+     * @throws NotFoundException if imports are disabled or there is no such regular file
+     */
+    public Path resolveImport(String name) {
+        if (importDirectory == null) {
+            throw new NotFoundException("File import is not enabled");
+        }
+        Path file;
+        try {
+            file = importDirectory.resolve(name).toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            throw new NotFoundException("File not found");
+        }
+        if (!file.startsWith(importDirectory) || !Files.isRegularFile(file)) {
+            throw new NotFoundException("File not found");
+        }
+        return file;
+    }
+}
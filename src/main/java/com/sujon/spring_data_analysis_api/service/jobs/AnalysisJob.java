@@ -0,0 +1,70 @@
+package com.sujon.spring_data_analysis_api.service.jobs;
+
+import com.sujon.spring_data_analysis_api.controller.response.AnalysisJobResponse;
+import com.sujon.spring_data_analysis_api.model.JobStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * State of one asynchronous analysis, written by its worker and read by status requests.
+ */
+final class AnalysisJob {
+
+    private final String id;
+    private final long totalBytes;
+    private final OffsetDateTime createdAt;
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile long bytesRead;
+    private volatile Long analysisId;
+    private volatile String error;
+    private volatile OffsetDateTime finishedAt;
+
+    AnalysisJob(String id, long totalBytes) {
+        this.id = id;
+        this.totalBytes = totalBytes;
+        this.createdAt = OffsetDateTime.now();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    void start() {
+        status = JobStatus.RUNNING;
+    }
+
+    void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    void succeed(Long analysisId) {
+        this.analysisId = analysisId;
+        finish(JobStatus.SUCCEEDED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(JobStatus.FAILED);
+    }
+
+    private void finish(JobStatus status) {
+        finishedAt = OffsetDateTime.now();
+        this.status = status;
+    }
+
+    AnalysisJobResponse toResponse() {
+        // Read the status first: the fields it depends on are written before it changes
+        JobStatus current = status;
+        double progress = switch (current) {
+            case QUEUED -> 0;
+            case RUNNING -> totalBytes == 0 ? 0 : Math.min(1, (double) bytesRead / totalBytes);
+            case SUCCEEDED, FAILED -> 1;
+        };
+        return new AnalysisJobResponse(id, current, progress, analysisId, error, createdAt, finishedAt);
+    }
+}
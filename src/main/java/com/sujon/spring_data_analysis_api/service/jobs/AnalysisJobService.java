@@ -0,0 +1,123 @@
+package com.sujon.spring_data_analysis_api.service.jobs;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.controller.response.AnalysisJobResponse;
+import com.sujon.spring_data_analysis_api.exception.BadRequestException;
+import com.sujon.spring_data_analysis_api.exception.NotFoundException;
+import com.sujon.spring_data_analysis_api.exception.TooManyRequestsException;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import com.sujon.spring_data_analysis_api.service.files.CsvFileStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs CSV analyses in the background, so a large upload holds a request thread only
+ * while its body is spooled to disk.
+ * <p>
+ * At most {@code analysis.jobs.threads} jobs run at a time and
+ * {@code analysis.jobs.queue-capacity} more wait for a worker. A job beyond that is
+ * rejected before its body is read. Jobs are kept in memory, so they are only visible
+ * on the instance that accepted them, and are forgotten {@code analysis.jobs.retention}
+ * after they finish.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalysisJobService {
+
+    private final DataAnalysisService dataAnalysisService;
+    private final CsvFileStore csvFileStore;
+    private final ThreadPoolExecutor analysisJobExecutor;
+    private final AnalysisProperties analysisProperties;
+
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    // One permit per running or queued job
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        AnalysisProperties.Jobs settings = analysisProperties.getJobs();
+        slots = new Semaphore(Math.max(1, settings.getThreads()) + Math.max(0, settings.getQueueCapacity()));
+    }
+
+    /**
+     * Spools a request body and queues its analysis.
+     * @param input the request body stream
+     * @param options how numeric columns are profiled
+     * @return the queued job
+     * @throws TooManyRequestsException if the queue is full
+     * @throws BadRequestException if the body cannot be read
+     */
+    public AnalysisJobResponse submit(InputStream input, AnalysisOptions options) {
+        evictExpired();
+        if (!slots.tryAcquire()) {
+            throw new TooManyRequestsException("Analysis job queue is full");
+        }
+        Path file;
+        try {
+            file = csvFileStore.spool(input);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), file.toFile().length());
+        jobs.put(job.getId(), job);
+        analysisJobExecutor.execute(() -> run(job, file, options));
+        return job.toResponse();
+    }
+
+    /**
+     * @param id the job id returned on submission
+     * @return the current state of the job
+     * @throws NotFoundException if there is no such job, or it finished too long ago
+     */
+    public AnalysisJobResponse getJob(String id) {
+        evictExpired();
+        AnalysisJob job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Job not found");
+        }
+        return job.toResponse();
+    }
+
+    private void run(AnalysisJob job, Path file, AnalysisOptions options) {
+        job.start();
+        Long analysisId = null;
+        // Stays set unless the analysis returns, so an Error still fails the job before it propagates
+        String error = "Analysis failed";
+        try {
+            analysisId = dataAnalysisService.analyzeCsvFile(file, options, job::setBytesRead).id();
+            error = null;
+        } catch (BadRequestException e) {
+            error = e.getMessage();
+        } catch (RuntimeException e) {
+            // Reported with the generic message
+        } finally {
+            csvFileStore.delete(file);
+            slots.release();
+            // Only reported finished once its slot is free again
+            if (error == null) {
+                job.succeed(analysisId);
+            } else {
+                job.fail(error);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(analysisProperties.getJobs().getRetention());
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,74 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of primitive doubles, used instead of a {@code List<Double>}
+ * so numeric columns cost 8 bytes per value and can be selected or sorted
+ * without boxing.
+ */
+public final class DoubleBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] values;
+    private int size;
+
+    public DoubleBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public DoubleBuffer(int initialCapacity) {
+        this.values = new double[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Appends a value, growing the backing array by half when it is full.
+     * @param value the value to append
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends all values of another buffer.
+     * @param other the buffer to copy from
+     */
+    public void addAll(DoubleBuffer other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(size + other.size, size + (size >> 1) + 1));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    /**
+     * Trims the backing array to the current size and returns it.
+     * The returned array is the buffer's own storage, not a copy.
+     * @return the buffered values in insertion order
+     */
+    public double[] toArray() {
+        if (values.length != size) {
+            values = Arrays.copyOf(values, size);
+        }
+        return values;
+    }
+}
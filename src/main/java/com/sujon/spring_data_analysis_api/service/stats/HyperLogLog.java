@@ -0,0 +1,325 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable HyperLogLog++ distinct-value estimator with a sparse representation.
+ * <p>
+ * Each value is reduced to a 64-bit hash. While few values have been seen the
+ * sketch is sparse: it keeps one int per occupied register of a much finer
+ * precision ({@value #SPARSE_PRECISION} bits), holding the register index and
+ * its leading-zero rank, and estimates by linear counting over those
+ * {@code 2^25} registers, which is close to exact at low cardinalities. Once
+ * the sparse list would take more memory than the dense form it is folded into
+ * {@code 2^p} byte registers.
+ * <p>
+ * The dense estimate uses Ertl's improved estimator ("New cardinality
+ * estimation algorithms for HyperLogLog sketches", 2017), which needs no
+ * empirical bias tables and is unbiased over the whole range, in place of the
+ * bias-corrected raw estimate of the HLL++ paper.
+ * <p>
+ * Error bound: the relative standard error is {@code 1.04 / sqrt(2^p)}, about
+ * 0.81% for the default precision 14, so roughly 95% of estimates fall within
+ * twice and 99.7% within three times that of the true count. Memory is at
+ * most {@code 2^p} bytes. The hash is unseeded and fixed, so the same values
+ * always give the same estimate.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private static final int SPARSE_PRECISION = 25;
+    private static final int RANK_BITS = 6;
+    private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+    private static final int INITIAL_BUFFER = 64;
+
+    private final int precision;
+    private final int registerCount;
+
+    // Sparse form: sorted, one entry per sparse index, plus unsorted recent additions
+    private int[] sparse = new int[0];
+    private int[] pending = new int[INITIAL_BUFFER];
+    private int pendingSize;
+
+    // Dense form, null while sparse
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    /**
+     * Hashes a character range with a 64-bit MurmurHash3-style mix.
+     * @param chars buffer holding the value
+     * @param start index of the first character
+     * @param end index one past the last character
+     * @return the 64-bit hash
+     */
+    public static long hash(char[] chars, int start, int end) {
+        long h = 0x9E3779B97F4A7C15L ^ ((end - start) * 0xC6A4A7935BD1E995L);
+        int i = start;
+        for (; i + 4 <= end; i += 4) {
+            long k = chars[i]
+                    | (long) chars[i + 1] << 16
+                    | (long) chars[i + 2] << 32
+                    | (long) chars[i + 3] << 48;
+            h ^= mixKey(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729L;
+        }
+        long k = 0;
+        for (int shift = 0; i < end; i++, shift += 16) {
+            k |= (long) chars[i] << shift;
+        }
+        h ^= mixKey(k);
+        return finalizeHash(h);
+    }
+
+    /**
+     * Hashes a string exactly as {@link #hash(char[], int, int)} hashes the same characters.
+     * @param value the value to hash
+     * @return the 64-bit hash
+     */
+    public static long hash(String value) {
+        return hash(value.toCharArray(), 0, value.length());
+    }
+
+    /**
+     * Adds one hashed value.
+     * @param hash a hash from {@link #hash(char[], int, int)}
+     */
+    public void add(long hash) {
+        if (registers != null) {
+            addDense(hash);
+            return;
+        }
+        int index = (int) (hash >>> (64 - SPARSE_PRECISION));
+        int rank = rank(hash << SPARSE_PRECISION, 64 - SPARSE_PRECISION);
+        if (pendingSize == pending.length) {
+            flushPending();
+            if (registers != null) {
+                addDense(hash);
+                return;
+            }
+        }
+        pending[pendingSize++] = index << RANK_BITS | rank;
+    }
+
+    /**
+     * Folds another estimator into this one. The other estimator is left unchanged.
+     * @param other an estimator with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge estimators of different precision");
+        }
+        if (other.registers == null) {
+            for (int entry : other.sparse) {
+                addSparseEntry(entry);
+            }
+            for (int i = 0; i < other.pendingSize; i++) {
+                addSparseEntry(other.pending[i]);
+            }
+            return;
+        }
+        toDense();
+        for (int i = 0; i < registerCount; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values added
+     */
+    public long estimate() {
+        if (registers == null) {
+            flushPending();
+        }
+        if (registers == null) {
+            // Linear counting over the sparse registers
+            double m = 1 << SPARSE_PRECISION;
+            return Math.round(m * Math.log(m / (m - sparse.length)));
+        }
+        return Math.round(denseEstimate());
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return true once the sketch has switched to dense registers
+     */
+    public boolean isDense() {
+        return registers != null;
+    }
+
+    private void addSparseEntry(int entry) {
+        if (registers != null) {
+            addDenseEntry(entry);
+            return;
+        }
+        if (pendingSize == pending.length) {
+            flushPending();
+            if (registers != null) {
+                addDenseEntry(entry);
+                return;
+            }
+        }
+        pending[pendingSize++] = entry;
+    }
+
+    /**
+     * Sorts the pending entries into the sparse list, keeping the highest rank per index,
+     * and switches to dense registers when the list outgrows them.
+     */
+    private void flushPending() {
+        if (pendingSize > 0) {
+            Arrays.sort(pending, 0, pendingSize);
+            int[] merged = new int[sparse.length + pendingSize];
+            int size = 0;
+            int a = 0;
+            int b = 0;
+            while (a < sparse.length || b < pendingSize) {
+                int entry;
+                if (b == pendingSize || (a < sparse.length && sparse[a] < pending[b])) {
+                    entry = sparse[a++];
+                } else {
+                    entry = pending[b++];
+                }
+                // Entries are ordered by index, then rank, so a later entry for the same index wins
+                if (size > 0 && (merged[size - 1] >>> RANK_BITS) == (entry >>> RANK_BITS)) {
+                    merged[size - 1] = entry;
+                } else {
+                    merged[size++] = entry;
+                }
+            }
+            sparse = Arrays.copyOf(merged, size);
+            pendingSize = 0;
+        }
+
+        // An int per sparse entry against a byte per dense register
+        if (sparse.length * 4 > registerCount) {
+            toDense();
+        } else if (pending.length < sparse.length / 4 + INITIAL_BUFFER) {
+            pending = new int[Math.min(sparse.length / 2 + INITIAL_BUFFER, registerCount / 4)];
+        }
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[registerCount];
+        for (int entry : sparse) {
+            addDenseEntry(entry);
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            addDenseEntry(pending[i]);
+        }
+        sparse = null;
+        pending = null;
+        pendingSize = 0;
+    }
+
+    private void addDense(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        int rank = rank(hash << precision, 64 - precision);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Converts a sparse entry to its dense register. The sparse index bits below the
+     * dense precision are the first bits of the dense rank's input.
+     */
+    private void addDenseEntry(int entry) {
+        int sparseIndex = entry >>> RANK_BITS;
+        int extraBits = SPARSE_PRECISION - precision;
+        int index = sparseIndex >>> extraBits;
+        int low = sparseIndex & ((1 << extraBits) - 1);
+        int rank = low == 0
+                ? extraBits + (entry & RANK_MASK)
+                : Integer.numberOfLeadingZeros(low) - (32 - extraBits) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    private double denseEstimate() {
+        int maxRank = 64 - precision + 1;
+        int[] histogram = new int[maxRank + 1];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = registerCount;
+        double z = m * tau(1 - histogram[maxRank] / m);
+        for (int k = maxRank - 1; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma(histogram[0] / m);
+        return m * m / (2 * Math.log(2) * z);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    /**
+     * Position of the first one bit in the top {@code bits} bits of {@code w}, counting
+     * from 1, or {@code bits + 1} if they are all zero.
+     */
+    private static int rank(long w, int bits) {
+        return Math.min(Long.numberOfLeadingZeros(w), bits) + 1;
+    }
+
+    private static long mixKey(long k) {
+        k *= 0x87C37B91114253D5L;
+        k = Long.rotateLeft(k, 31);
+        return k * 0x4CF5AD432745937FL;
+    }
+
+    private static long finalizeHash(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,162 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+/**
+ * One-pass, mergeable accumulator for the mean, variance, skewness and kurtosis
+ * of a stream of doubles.
+ * <p>
+ * The sum behind the mean is kept with Neumaier's compensated summation, so
+ * its error does not grow with the number of values. Central moments are
+ * updated with Welford's method extended to the third and fourth moment
+ * (Pébay, "Formulas for robust, one-pass parallel computation of covariances
+ * and arbitrary-order statistical moments", 2008), which avoids the
+ * cancellation of the textbook sum-of-squares formula. {@link #merge} combines
+ * accumulators of disjoint parts of the data with the pairwise formulas from
+ * the same paper.
+ */
+public final class MomentAccumulator {
+
+    private long count;
+    private double sum;
+    private double compensation;
+
+    // Running mean used by the central moment updates, and the sums of 2nd to 4th powers of deviations
+    private double mean;
+    private double m2;
+    private double m3;
+    private double m4;
+
+    /**
+     * Adds one value.
+     * @param value the value to add
+     */
+    public void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+
+        long previous = count++;
+        double n = count;
+        double delta = value - mean;
+        double deltaN = delta / n;
+        double deltaN2 = deltaN * deltaN;
+        double term = delta * deltaN * previous;
+        mean += deltaN;
+        m4 += term * deltaN2 * (n * n - 3 * n + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3 += term * deltaN * (n - 2) - 3 * deltaN * m2;
+        m2 += term;
+    }
+
+    /**
+     * Adds every value of an array, in order.
+     * @param values the values to add
+     * @param size number of values in use at the start of the array
+     */
+    public void addAll(double[] values, int size) {
+        for (int i = 0; i < size; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * Folds in the moments of another, disjoint set of values. The other accumulator
+     * is left unchanged.
+     * @param other the accumulator to merge
+     */
+    public void merge(MomentAccumulator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            compensation = other.compensation;
+            mean = other.mean;
+            m2 = other.m2;
+            m3 = other.m3;
+            m4 = other.m4;
+            return;
+        }
+
+        double na = count;
+        double nb = other.count;
+        double n = na + nb;
+        double delta = other.mean - mean;
+        double delta2 = delta * delta;
+
+        double mergedM4 = m4 + other.m4
+                + delta2 * delta2 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+                + 6 * delta2 * (na * na * other.m2 + nb * nb * m2) / (n * n)
+                + 4 * delta * (na * other.m3 - nb * m3) / n;
+        double mergedM3 = m3 + other.m3
+                + delta2 * delta * na * nb * (na - nb) / (n * n)
+                + 3 * delta * (na * other.m2 - nb * m2) / n;
+        m2 += other.m2 + delta2 * na * nb / n;
+        m3 = mergedM3;
+        m4 = mergedM4;
+        mean += delta * nb / n;
+
+        double t = sum + other.sum;
+        if (Math.abs(sum) >= Math.abs(other.sum)) {
+            compensation += (sum - t) + other.sum;
+        } else {
+            compensation += (other.sum - t) + sum;
+        }
+        compensation += other.compensation;
+        sum = t;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the arithmetic mean, or NaN if no value was added
+     */
+    public double getMean() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        // An infinite sum makes the compensation NaN, so it is dropped
+        return (Double.isFinite(sum) ? sum + compensation : sum) / count;
+    }
+
+    /**
+     * @return the population variance, or NaN if no value was added
+     */
+    public double getVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * @return the population standard deviation, or NaN if no value was added
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the population skewness, or NaN if there are fewer than two distinct values
+     */
+    public double getSkewness() {
+        if (count == 0 || m2 == 0) {
+            return Double.NaN;
+        }
+        return Math.sqrt(count) * m3 / Math.pow(m2, 1.5);
+    }
+
+    /**
+     * @return the population excess kurtosis (0 for a normal distribution), or NaN if there
+     * are fewer than two distinct values
+     */
+    public double getKurtosis() {
+        if (count == 0 || m2 == 0) {
+            return Double.NaN;
+        }
+        return count * m4 / (m2 * m2) - 3;
+    }
+}
@@ -0,0 +1,170 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+import java.util.Arrays;
+
+/**
+ * Multi-rank selection over a primitive column, used instead of a full sort
+ * when only a handful of positions of the sorted order are needed.
+ * <p>
+ * {@link #select} moves the values so that every requested rank holds exactly
+ * the value a full {@link Arrays#sort(double[])} would put there, including
+ * the placement of {@code NaN} and the sign of zero, in expected linear time.
+ * The values are only permuted, never changed.
+ * All ranks are found in one recursive quickselect with three-way partitioning;
+ * a range that recurses too deep falls back to sorting, as in introselect.
+ */
+public final class OrderStatistics {
+
+    private static final int SORT_THRESHOLD = 32;
+
+    private OrderStatistics() {
+    }
+
+    /**
+     * Places the order statistics for the given ranks.
+     * @param values the values, reordered in place
+     * @param size number of values in use at the start of the array
+     * @param ranks zero-based positions of the sorted order to place, in any order
+     */
+    public static void select(double[] values, int size, int... ranks) {
+        if (size == 0 || ranks.length == 0) {
+            return;
+        }
+
+        // NaN sorts last, so move every NaN to the tail and select among the rest
+        int end = size;
+        for (int i = 0; i < end; ) {
+            if (Double.isNaN(values[i])) {
+                end--;
+                double swap = values[i];
+                values[i] = values[end];
+                values[end] = swap;
+            } else {
+                i++;
+            }
+        }
+
+        int[] targets = sortedDistinctBelow(ranks, end);
+        if (targets.length == 0) {
+            return;
+        }
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(end));
+
+        if (!containsNegativeZero(values, end)) {
+            select(values, 0, end - 1, targets, 0, targets.length, depthLimit);
+            return;
+        }
+
+        // Selection compares with <, which cannot tell -0.0 from 0.0. Split off the zeros
+        // first, put the negative ones in front and select on both sides of them.
+        int lt = 0;
+        int gt = end - 1;
+        int i = 0;
+        while (i <= gt) {
+            double value = values[i];
+            if (value < 0) {
+                values[i++] = values[lt];
+                values[lt++] = value;
+            } else if (value > 0) {
+                values[i] = values[gt];
+                values[gt--] = value;
+            } else {
+                i++;
+            }
+        }
+        int zero = lt;
+        for (int k = lt; k <= gt; k++) {
+            if (Double.doubleToRawLongBits(values[k]) != 0) {
+                values[k] = values[zero];
+                values[zero++] = -0.0;
+            }
+        }
+
+        int split = 0;
+        while (split < targets.length && targets[split] < lt) {
+            split++;
+        }
+        int rightFrom = split;
+        while (rightFrom < targets.length && targets[rightFrom] <= gt) {
+            rightFrom++;
+        }
+        select(values, 0, lt - 1, targets, 0, split, depthLimit);
+        select(values, gt + 1, end - 1, targets, rightFrom, targets.length, depthLimit);
+    }
+
+    private static boolean containsNegativeZero(double[] values, int end) {
+        for (int i = 0; i < end; i++) {
+            if (values[i] == 0 && Double.doubleToRawLongBits(values[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void select(double[] values, int lo, int hi, int[] ranks, int rankFrom, int rankTo, int depth) {
+        while (rankFrom < rankTo) {
+            if (hi - lo < SORT_THRESHOLD || depth-- == 0) {
+                Arrays.sort(values, lo, hi + 1);
+                return;
+            }
+
+            double pivot = medianOfThree(values[lo], values[(lo + hi) >>> 1], values[hi]);
+
+            // Three-way partition: [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                double value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = value;
+                } else if (value > pivot) {
+                    values[i] = values[gt];
+                    values[gt--] = value;
+                } else {
+                    i++;
+                }
+            }
+
+            int leftTo = rankFrom;
+            while (leftTo < rankTo && ranks[leftTo] < lt) {
+                leftTo++;
+            }
+            int rightFrom = leftTo;
+            while (rightFrom < rankTo && ranks[rightFrom] <= gt) {
+                rightFrom++;
+            }
+
+            // Recurse into the side with fewer ranks, loop on the other
+            if (leftTo - rankFrom < rankTo - rightFrom) {
+                select(values, lo, lt - 1, ranks, rankFrom, leftTo, depth);
+                lo = gt + 1;
+                rankFrom = rightFrom;
+            } else {
+                select(values, gt + 1, hi, ranks, rightFrom, rankTo, depth);
+                hi = lt - 1;
+                rankTo = leftTo;
+            }
+        }
+    }
+
+    private static int[] sortedDistinctBelow(int[] ranks, int limit) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int rank : sorted) {
+            if (rank < limit && (count == 0 || sorted[count - 1] != rank)) {
+                sorted[count++] = rank;
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (a < b) {
+            return b < c ? b : Math.max(a, c);
+        }
+        return a < c ? a : Math.max(b, c);
+    }
+}
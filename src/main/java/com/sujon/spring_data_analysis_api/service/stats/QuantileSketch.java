@@ -0,0 +1,247 @@
+package com.sujon.spring_data_analysis_api.service.stats;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Mergeable KLL quantile sketch (Karnin, Lang and Liberty) over doubles.
+ * <p>
+ * Values go into level 0. When the sketch reaches its capacity, a full level
+ * is sorted and every other value, starting at a random offset, moves to the
+ * next level with twice the weight, so memory stays at roughly {@code 3k}
+ * values however many are added. Level capacities shrink by 2/3 per level
+ * below the top, as in the paper.
+ * <p>
+ * Error bound: with {@code k} taken from {@link #kForAccuracy(double)}, the
+ * value returned for a quantile {@code q} has a true rank within
+ * {@code (q ± accuracy) * n} for at least 99% of queries. Until the first
+ * compaction every value is kept with weight 1 and quantiles are exact,
+ * using the same linear interpolation as the sort-based path. Min and max
+ * are always exact. The random offsets come from a fixed seed, so the same
+ * input in the same order always gives the same result.
+ */
+public final class QuantileSketch {
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final int k;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+
+    private double[][] levels = new double[1][];
+    private int[] levelSizes = new int[1];
+    private int retained;
+    private int maxRetained;
+
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    // Values of all levels in ascending order with cumulative weights, built on first query
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch(double accuracy) {
+        this.k = kForAccuracy(accuracy);
+        this.levels[0] = new double[capacity(0)];
+        this.maxRetained = capacity(0);
+    }
+
+    /**
+     * Chooses the level size {@code k} for a normalized rank error.
+     * @param accuracy the tolerated normalized rank error, e.g. 0.01 for 1%
+     * @return the smallest {@code k} meeting the documented bound
+     */
+    public static int kForAccuracy(double accuracy) {
+        return Math.max(8, (int) Math.ceil(2.0 / accuracy));
+    }
+
+    /**
+     * Adds one value.
+     * @param value the value to add
+     */
+    public void update(double value) {
+        count++;
+        if (count == 1 || Double.compare(value, min) < 0) {
+            min = value;
+        }
+        if (count == 1 || Double.compare(value, max) > 0) {
+            max = value;
+        }
+        append(0, value);
+        retained++;
+        sortedValues = null;
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Folds another sketch into this one. The other sketch is left unchanged.
+     * @param other a sketch built with the same accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.levelSizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        retained += other.retained;
+        if (count == 0 || Double.compare(other.min, min) < 0) {
+            min = other.min;
+        }
+        if (count == 0 || Double.compare(other.max, max) > 0) {
+            max = other.max;
+        }
+        count += other.count;
+        sortedValues = null;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates a quantile, interpolating linearly between neighbouring positions
+     * of the weighted sorted order.
+     * @param fraction the quantile in [0, 1], e.g. 0.25 for the 25th percentile
+     * @return the estimated value, or NaN if the sketch is empty
+     */
+    public double quantile(double fraction) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (sortedValues == null) {
+            buildSortedView();
+        }
+        if (count == 1) {
+            return sortedValues[0];
+        }
+        double index = fraction * (count - 1);
+        long lower = (long) Math.floor(index);
+        long upper = (long) Math.ceil(index);
+        double lowerValue = valueAt(lower);
+        if (lower == upper) {
+            return lowerValue;
+        }
+        double upperValue = valueAt(upper);
+        return lowerValue + (index - lower) * (upperValue - lowerValue);
+    }
+
+    /**
+     * @return the number of values currently held, bounded by the capacity
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    private double valueAt(long position) {
+        // First entry whose cumulative weight passes the position
+        int index = Arrays.binarySearch(cumulativeWeights, position + 1);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return sortedValues[Math.min(index, sortedValues.length - 1)];
+    }
+
+    private void buildSortedView() {
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < levelSizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        sortedValues = new double[n];
+        cumulativeWeights = new long[n];
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            sortedValues[i] = values[order[i]];
+            cumulative += weights[order[i]];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (levelSizes[h] >= capacity(h)) {
+                if (h + 1 == levels.length) {
+                    grow();
+                }
+                compact(h);
+                if (retained < maxRetained) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other value to the level above. With an odd
+     * size the smallest value stays behind.
+     */
+    private void compact(int h) {
+        double[] level = levels[h];
+        int size = levelSizes[h];
+        Arrays.sort(level, 0, size);
+        int pairs = size / 2;
+        int start = size - 2 * pairs;
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int j = 0; j < pairs; j++) {
+            append(h + 1, level[start + 2 * j + offset]);
+        }
+        levelSizes[h] = start;
+        retained -= pairs;
+    }
+
+    private void grow() {
+        int height = levels.length + 1;
+        levels = Arrays.copyOf(levels, height);
+        levelSizes = Arrays.copyOf(levelSizes, height);
+        levels[height - 1] = new double[MIN_LEVEL_CAPACITY];
+        maxRetained = 0;
+        for (int h = 0; h < height; h++) {
+            maxRetained += capacity(h);
+        }
+    }
+
+    private int capacity(int h) {
+        int depth = levels.length - h - 1;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(Math.pow(CAPACITY_DECAY, depth) * k) + 1);
+    }
+
+    private void append(int h, double value) {
+        if (levelSizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(levelSizes[h] * 2, MIN_LEVEL_CAPACITY));
+        }
+        levels[h][levelSizes[h]++] = value;
+    }
+}
@@ -0,0 +1,197 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary encoding of the column statistics of one analysis, stored on its
+ * {@code data_analysis} row when {@code analysis.storage.column-statistics} is {@code blob}.
+ * <p>
+ * The layout is columnar, all big-endian:
+ * <ul>
+ *     <li>a version byte and the number of columns</li>
+ *     <li>the header-name dictionary: the UTF-8 length of each name, then the names back to back</li>
+ *     <li>a flags byte per column, {@link #NUMERIC} and {@link #APPROX_UNIQUE_COUNT}</li>
+ *     <li>the null counts, then the unique counts, as ints</li>
+ *     <li>for numeric columns only, a presence bitmap as a short, with bit {@code f} set when
+ *     field {@code f} is not null</li>
+ *     <li>for numeric columns only, {@link #NUMERIC_FIELDS} arrays of doubles: min, max, mean,
+ *     median, standard deviation, skewness, kurtosis and the six percentiles</li>
+ * </ul>
+ * A null statistic is written as 0 with its bit clear, so a statistic that is NaN, as those
+ * of a column with a "NaN" cell can be, is kept as NaN.
+ */
+public final class ColumnStatisticsCodec {
+
+    public static final byte VERSION = 1;
+
+    static final byte NUMERIC = 1;
+    static final byte APPROX_UNIQUE_COUNT = 2;
+
+    static final int NUMERIC_FIELDS = 13;
+
+    private ColumnStatisticsCodec() {
+    }
+
+    /**
+     * @param statistics the statistics of every column of an analysis, in column order
+     * @return the encoded statistics
+     */
+    public static byte[] encode(List<ColumnStatistics> statistics) {
+        int columns = statistics.size();
+        byte[][] names = new byte[columns][];
+        int nameBytes = 0;
+        int numericColumns = 0;
+        for (int c = 0; c < columns; c++) {
+            names[c] = statistics.get(c).columnName().getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[c].length;
+            numericColumns += statistics.get(c).isNumeric() ? 1 : 0;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(1 + 4 + 4 * columns + nameBytes + columns + 8 * columns
+                + (2 + 8 * NUMERIC_FIELDS) * numericColumns);
+        out.put(VERSION).putInt(columns);
+        for (byte[] name : names) {
+            out.putInt(name.length);
+        }
+        for (byte[] name : names) {
+            out.put(name);
+        }
+        for (ColumnStatistics column : statistics) {
+            out.put((byte) ((column.isNumeric() ? NUMERIC : 0)
+                    | (column.uniqueCountMode() == UniqueCountMode.APPROX ? APPROX_UNIQUE_COUNT : 0)));
+        }
+        for (ColumnStatistics column : statistics) {
+            out.putInt(column.nullCount());
+        }
+        for (ColumnStatistics column : statistics) {
+            out.putInt(column.uniqueCount());
+        }
+        for (ColumnStatistics column : statistics) {
+            if (column.isNumeric()) {
+                short present = 0;
+                for (int field = 0; field < NUMERIC_FIELDS; field++) {
+                    present |= (short) (numericField(column, field) != null ? 1 << field : 0);
+                }
+                out.putShort(present);
+            }
+        }
+        for (int field = 0; field < NUMERIC_FIELDS; field++) {
+            for (ColumnStatistics column : statistics) {
+                if (column.isNumeric()) {
+                    Double value = numericField(column, field);
+                    out.putDouble(value == null ? 0 : value);
+                }
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * @param encoded bytes returned by {@link #encode}
+     * @return the statistics of every column, in column order
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static List<ColumnStatistics> decode(byte[] encoded) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(encoded);
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown column statistics version " + version);
+            }
+            int columns = in.getInt();
+            // Every column takes at least its name length, flags and two counts, 13 bytes
+            if (columns < 0 || columns > in.remaining() / 13) {
+                throw new IllegalArgumentException("Column statistics do not match their column count");
+            }
+
+            int[] nameLengths = new int[columns];
+            for (int c = 0; c < columns; c++) {
+                nameLengths[c] = in.getInt();
+            }
+            String[] names = new String[columns];
+            for (int c = 0; c < columns; c++) {
+                if (nameLengths[c] < 0 || nameLengths[c] > in.remaining()) {
+                    throw new IllegalArgumentException("Column statistics do not match their column count");
+                }
+                names[c] = new String(encoded, in.position(), nameLengths[c], StandardCharsets.UTF_8);
+                in.position(in.position() + nameLengths[c]);
+            }
+            byte[] flags = new byte[columns];
+            in.get(flags);
+            int[] nullCounts = new int[columns];
+            for (int c = 0; c < columns; c++) {
+                nullCounts[c] = in.getInt();
+            }
+            int[] uniqueCounts = new int[columns];
+            for (int c = 0; c < columns; c++) {
+                uniqueCounts[c] = in.getInt();
+            }
+
+            int numericColumns = 0;
+            for (byte flag : flags) {
+                numericColumns += (flag & NUMERIC) != 0 ? 1 : 0;
+            }
+            short[] present = new short[numericColumns];
+            for (int n = 0; n < numericColumns; n++) {
+                present[n] = in.getShort();
+            }
+            // Read field by field, as written, into one row of fields per numeric column
+            Double[][] numeric = new Double[numericColumns][NUMERIC_FIELDS];
+            for (int field = 0; field < NUMERIC_FIELDS; field++) {
+                for (int n = 0; n < numericColumns; n++) {
+                    double value = in.getDouble();
+                    numeric[n][field] = (present[n] & 1 << field) != 0 ? value : null;
+                }
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Column statistics do not match their column count");
+            }
+
+            List<ColumnStatistics> statistics = new ArrayList<>(columns);
+            int n = 0;
+            for (int c = 0; c < columns; c++) {
+                boolean isNumeric = (flags[c] & NUMERIC) != 0;
+                Double[] fields = isNumeric ? numeric[n++] : new Double[NUMERIC_FIELDS];
+                statistics.add(new ColumnStatistics(
+                        names[c],
+                        nullCounts[c],
+                        uniqueCounts[c],
+                        (flags[c] & APPROX_UNIQUE_COUNT) != 0 ? UniqueCountMode.APPROX : UniqueCountMode.EXACT,
+                        isNumeric,
+                        fields[0],
+                        fields[1],
+                        fields[2],
+                        fields[3],
+                        fields[4],
+                        fields[5],
+                        fields[6],
+                        isNumeric ? Arrays.asList(Arrays.copyOfRange(fields, 7, NUMERIC_FIELDS)) : null
+                ));
+            }
+            return statistics;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Column statistics are truncated", e);
+        }
+    }
+
+    private static Double numericField(ColumnStatistics column, int field) {
+        return switch (field) {
+            case 0 -> column.min();
+            case 1 -> column.max();
+            case 2 -> column.mean();
+            case 3 -> column.median();
+            case 4 -> column.standardDeviation();
+            case 5 -> column.skewness();
+            case 6 -> column.kurtosis();
+            default -> column.percentiles().get(field - 7);
+        };
+    }
+}
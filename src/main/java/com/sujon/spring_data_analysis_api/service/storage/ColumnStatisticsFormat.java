@@ -0,0 +1,11 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+/**
+ * How the column statistics of new analyses are stored. Analyses stored in either
+ * format are read back the same way, whatever the current setting.
+ */
+public enum ColumnStatisticsFormat {
+
+    ROWS, // One column_statistics row per column
+    BLOB // One ColumnStatisticsCodec blob on the data_analysis row
+}
@@ -0,0 +1,68 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+import com.sujon.spring_data_analysis_api.config.AnalysisProperties;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.repository.AnalysisColumnRow;
+import com.sujon.spring_data_analysis_api.repository.ColumnStatisticsRepository;
+import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves the column statistics of stored analyses from {@code column_statistics} rows
+ * into a {@link ColumnStatisticsCodec} blob on their {@code data_analysis} row.
+ * <p>
+ * Runs at startup when {@code analysis.storage.migrate-rows} is set, a batch of
+ * analyses per transaction, so an interrupted migration leaves every analysis in one
+ * format or the other and simply continues at the next startup. Reads handle both
+ * formats, so the application can serve requests from a partly migrated database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ColumnStatisticsMigration {
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final ColumnStatisticsRepository columnStatisticsRepository;
+    private final AnalysisProperties analysisProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void migrateAtStartup() {
+        if (analysisProperties.getStorage().isMigrateRows()) {
+            migrate();
+        }
+    }
+
+    /**
+     * Converts every analysis still stored as rows.
+     * @return the number of analyses converted
+     */
+    public int migrate() {
+        int batchSize = Math.max(1, analysisProperties.getStorage().getMigrationBatchSize());
+        int migrated = 0;
+        while (true) {
+            Integer converted = transactionTemplate.execute(status -> {
+                // Converted analyses no longer match, so the first page is always the next batch
+                List<Long> ids = dataAnalysisRepository.findIdsWithColumnRows(PageRequest.of(0, batchSize));
+                for (Long id : ids) {
+                    List<ColumnStatistics> statistics = dataAnalysisRepository.findColumnRowsById(id).stream()
+                            .filter(AnalysisColumnRow::hasColumn)
+                            .map(AnalysisColumnRow::toColumnStatistics)
+                            .toList();
+                    dataAnalysisRepository.updateColumnStatisticsBlob(id, ColumnStatisticsCodec.encode(statistics));
+                    columnStatisticsRepository.deleteByDataAnalysisId(id);
+                }
+                return ids.size();
+            });
+            if (converted == null || converted == 0) {
+                return migrated;
+            }
+            migrated += converted;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of stored text: a five-byte header followed by the UTF-8 bytes,
+ * deflate-compressed unless that would not make them smaller.
+ * <p>
+ * The header is one codec byte, {@link #STORED} or {@link #DEFLATE}, and the length of
+ * the uncompressed UTF-8 bytes as a big-endian int, so the text is decoded into a
+ * buffer of the right size in one go and other codecs can be added without
+ * rewriting stored rows.
+ */
+public final class CompressedText {
+
+    public static final byte STORED = 0;
+    public static final byte DEFLATE = 1;
+
+    private static final int HEADER_SIZE = 5;
+
+    // Deflate expands its input at most 1032 times, so a longer declared length cannot be right
+    private static final long MAX_DEFLATE_RATIO = 1032;
+
+    private CompressedText() {
+    }
+
+    /**
+     * @param text the text to encode
+     * @return the header and the text's UTF-8 bytes, compressed when that saves space
+     */
+    public static byte[] encode(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            // Sized for CSV, which usually compresses to well under half
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + utf8.length / 2);
+            writeHeader(out, DEFLATE, utf8.length);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+                if (out.size() >= HEADER_SIZE + utf8.length) {
+                    return stored(utf8);
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param encoded bytes returned by {@link #encode}
+     * @return the original text
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static String decode(byte[] encoded) {
+        if (encoded.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Encoded text is missing its header");
+        }
+        ByteBuffer header = ByteBuffer.wrap(encoded, 0, HEADER_SIZE);
+        byte codec = header.get();
+        int length = header.getInt();
+        // Checked before anything is allocated for it
+        int payload = encoded.length - HEADER_SIZE;
+        return switch (codec) {
+            case STORED -> {
+                if (length != payload) {
+                    throw new IllegalArgumentException("Stored text does not match its declared length");
+                }
+                yield new String(encoded, HEADER_SIZE, length, StandardCharsets.UTF_8);
+            }
+            case DEFLATE -> {
+                if (length < 0 || length > MAX_DEFLATE_RATIO * payload) {
+                    throw new IllegalArgumentException("Compressed text does not match its declared length");
+                }
+                yield new String(inflate(encoded, length), StandardCharsets.UTF_8);
+            }
+            default -> throw new IllegalArgumentException("Unknown text codec " + codec);
+        };
+    }
+
+    private static byte[] stored(byte[] utf8) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + utf8.length);
+        writeHeader(out, STORED, utf8.length);
+        out.writeBytes(utf8);
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] encoded, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+            byte[] utf8 = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int inflated = inflater.inflate(utf8, read, length - read);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += inflated;
+            }
+            // Once the declared length is filled, only the end of the stream may remain
+            if (read != length || inflater.inflate(new byte[1]) != 0 || !inflater.finished()) {
+                throw new IllegalArgumentException("Compressed text does not match its declared length");
+            }
+            return utf8;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Compressed text is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, byte codec, int length) {
+        out.write(codec);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(length).array());
+    }
+}
@@ -0,0 +1,99 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.service.admission.IngestAdmission;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for admission control, with two analysis slots and a byte budget
+ * small enough for a single permit to fill.
+ */
+@SpringBootTest(properties = {
+        "analysis.admission.max-concurrent-analyses=2",
+        "analysis.admission.max-in-flight-bytes=1KB",
+        "analysis.admission.retry-after=3s"
+})
+class AdmissionControlTest extends AnalysisApiTestSupport {
+
+        private static final String CSV = "id,score\n1,10\n2,20\n";
+
+        @Autowired
+        private IngestAdmission ingestAdmission;
+
+        @Test
+        void shouldRejectUploadLargerThanTheBudgetWithPayloadTooLarge() throws Exception {
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content("id\n" + "1\n".repeat(600)))
+                                .andExpect(status().isPayloadTooLarge())
+                                .andExpect(header().doesNotExist("Retry-After"));
+
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        @Test
+        void shouldRequireContentLengthForInMemoryUploads() throws Exception {
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN))
+                                .andExpect(status().isLengthRequired());
+        }
+
+        @Test
+        void shouldRejectWithRetryAfterWhenEverySlotIsTaken() throws Exception {
+                try (IngestAdmission.Permit first = ingestAdmission.admit(0);
+                     IngestAdmission.Permit second = ingestAdmission.admit(0)) {
+                        for (String endpoint : new String[]{"/api/analysis/ingestCsv", "/api/analysis/ingestCsv/stream"}) {
+                                mockMvc.perform(post(endpoint)
+                                                .contentType(TEXT_PLAIN)
+                                                .content(CSV))
+                                                .andExpect(status().isTooManyRequests())
+                                                .andExpect(header().string("Retry-After", "3"));
+                        }
+                }
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(CSV))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        void shouldRejectInMemoryUploadWhenTheByteBudgetIsFull() throws Exception {
+                try (IngestAdmission.Permit held = ingestAdmission.admit(1024)) {
+                        mockMvc.perform(post("/api/analysis/ingestCsv")
+                                        .contentType(TEXT_PLAIN)
+                                        .content(CSV))
+                                        .andExpect(status().isTooManyRequests())
+                                        .andExpect(header().string("Retry-After", "3"));
+
+                        // Streamed bodies are not held in memory, so only need the free slot
+                        mockMvc.perform(post("/api/analysis/ingestCsv/stream")
+                                        .contentType(TEXT_PLAIN)
+                                        .content(CSV))
+                                        .andExpect(status().isOk());
+                }
+        }
+
+        @Test
+        void shouldReleaseAdmissionWhenTheAnalysisFails() throws Exception {
+                for (int attempt = 0; attempt < 5; attempt++) {
+                        mockMvc.perform(post("/api/analysis/ingestCsv")
+                                        .contentType(TEXT_PLAIN)
+                                        .content("a,b\n1,2,3\n"))
+                                        .andExpect(status().isBadRequest());
+                }
+
+                assertThat(ingestAdmission.getInFlightBytes()).isZero();
+                try (IngestAdmission.Permit first = ingestAdmission.admit(1024);
+                     IngestAdmission.Permit second = ingestAdmission.admit(0)) {
+                        assertThat(ingestAdmission.getInFlightBytes()).isEqualTo(1024);
+                }
+        }
+}
@@ -0,0 +1,72 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Common fixture of the integration tests that start the application with their own
+ * properties, set on the subclass with {@code @SpringBootTest(properties = ...)}.
+ * <p>
+ * Every such context gets an in-memory database of its own, so contexts kept alive by
+ * the test framework do not share tables, and every test starts with no analyses stored.
+ */
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1")
+abstract class AnalysisApiTestSupport {
+
+        @Autowired
+        protected MockMvc mockMvc;
+
+        @Autowired
+        protected DataAnalysisRepository dataAnalysisRepository;
+
+        @Autowired
+        protected ContentHashIndex contentHashIndex;
+
+        @Autowired
+        protected ObjectMapper objectMapper;
+
+        @BeforeEach
+        void deleteAnalyses() {
+                dataAnalysisRepository.deleteAll();
+                contentHashIndex.clear();
+        }
+
+        /**
+         * @param csvData the CSV content, posted to {@code /api/analysis/ingestCsv}
+         * @return the analysis, which must have succeeded
+         */
+        protected DataAnalysisResponse ingest(String csvData) throws Exception {
+                String body = mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, DataAnalysisResponse.class);
+        }
+
+        /**
+         * @param id the id of a stored analysis
+         * @return the analysis as {@code GET /api/analysis/{id}} returns it
+         */
+        protected DataAnalysisResponse read(Long id) throws Exception {
+                String body = mockMvc.perform(get("/api/analysis/" + id))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, DataAnalysisResponse.class);
+        }
+}
@@ -0,0 +1,151 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.AnalysisJobResponse;
+import com.sujon.spring_data_analysis_api.model.JobStatus;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for asynchronous analysis jobs, with a single worker and no queue
+ * so that one job waiting for the worker fills the service.
+ */
+@SpringBootTest(properties = {
+        "analysis.jobs.threads=1",
+        "analysis.jobs.queue-capacity=0"
+})
+class AnalysisJobApiTest extends AnalysisApiTestSupport {
+
+        @Autowired
+        private ThreadPoolExecutor analysisJobExecutor;
+
+        @MockitoSpyBean
+        private DataAnalysisService dataAnalysisService;
+
+        @Test
+        void shouldRunSubmittedJobAndReportTheAnalysisId(
+                        @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv) throws Exception {
+                MvcResult submitted = mockMvc.perform(post("/api/analysis/jobs")
+                                .contentType(TEXT_PLAIN)
+                                .content(numericCsv.getContentAsString(UTF_8)))
+                                .andExpect(status().isAccepted())
+                                .andReturn();
+                AnalysisJobResponse job = objectMapper.readValue(
+                                submitted.getResponse().getContentAsString(), AnalysisJobResponse.class);
+                assertThat(submitted.getResponse().getHeader("Location")).isEqualTo("/api/analysis/jobs/" + job.id());
+
+                AnalysisJobResponse finished = awaitCompletion(job.id());
+
+                assertThat(finished.status()).isEqualTo(JobStatus.SUCCEEDED);
+                assertThat(finished.progress()).isEqualTo(1.0);
+                assertThat(finished.error()).isNull();
+                mockMvc.perform(get("/api/analysis/" + finished.analysisId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.numberOfRows").value(10));
+        }
+
+        @Test
+        void shouldReportInvalidCsvAsFailedJob() throws Exception {
+                AnalysisJobResponse job = submit("a,b\n1,2,3\n");
+
+                AnalysisJobResponse finished = awaitCompletion(job.id());
+
+                assertThat(finished.status()).isEqualTo(JobStatus.FAILED);
+                assertThat(finished.error()).isEqualTo("Invalid CSV");
+                assertThat(finished.analysisId()).isNull();
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        @Test
+        void shouldReportAnErrorAsFailedJobAndFreeItsSlot(
+                        @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv) throws Exception {
+                doThrow(new OutOfMemoryError("Java heap space"))
+                                .when(dataAnalysisService).analyzeCsvFile(any(), any(), any());
+
+                AnalysisJobResponse failed = awaitCompletion(submit(numericCsv.getContentAsString(UTF_8)).id());
+
+                assertThat(failed.status()).isEqualTo(JobStatus.FAILED);
+                assertThat(failed.error()).isEqualTo("Analysis failed");
+
+                // The only slot is free again, so the next job is accepted and runs
+                reset(dataAnalysisService);
+                AnalysisJobResponse next = awaitCompletion(submit(numericCsv.getContentAsString(UTF_8)).id());
+                assertThat(next.status()).isEqualTo(JobStatus.SUCCEEDED);
+        }
+
+        @Test
+        void shouldRejectJobsWithTooManyRequestsWhenFull() throws Exception {
+                CountDownLatch release = new CountDownLatch(1);
+                analysisJobExecutor.execute(() -> {
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                });
+
+                AnalysisJobResponse waiting;
+                try {
+                        waiting = submit("id\n1\n");
+                        assertThat(waiting.status()).isEqualTo(JobStatus.QUEUED);
+
+                        mockMvc.perform(post("/api/analysis/jobs")
+                                        .contentType(TEXT_PLAIN)
+                                        .content("id\n2\n"))
+                                        .andExpect(status().isTooManyRequests());
+                } finally {
+                        release.countDown();
+                }
+
+                assertThat(awaitCompletion(waiting.id()).status()).isEqualTo(JobStatus.SUCCEEDED);
+                submit("id\n3\n");
+        }
+
+        @Test
+        void shouldReturnNotFoundForUnknownJob() throws Exception {
+                mockMvc.perform(get("/api/analysis/jobs/unknown"))
+                                .andExpect(status().isNotFound());
+        }
+
+        private AnalysisJobResponse submit(String csvData) throws Exception {
+                String body = mockMvc.perform(post("/api/analysis/jobs")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isAccepted())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, AnalysisJobResponse.class);
+        }
+
+        private AnalysisJobResponse awaitCompletion(String id) throws Exception {
+                for (int attempt = 0; attempt < 200; attempt++) {
+                        String body = mockMvc.perform(get("/api/analysis/jobs/" + id))
+                                        .andExpect(status().isOk())
+                                        .andReturn().getResponse().getContentAsString();
+                        AnalysisJobResponse job = objectMapper.readValue(body, AnalysisJobResponse.class);
+                        if (job.status() == JobStatus.SUCCEEDED || job.status() == JobStatus.FAILED) {
+                                return job;
+                        }
+                        Thread.sleep(50);
+                }
+                throw new AssertionError("Job " + id + " did not finish");
+        }
+}
@@ -0,0 +1,89 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+import com.sujon.spring_data_analysis_api.repository.AnalysisColumnRow;
+import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the projection queries that read a stored analysis as one row
+ * per column, by id and by dedup key.
+ */
+@SpringBootTest
+class AnalysisReadPathTest extends AnalysisApiTestSupport {
+
+        @Test
+        void shouldReadColumnRowsInColumnOrder() throws Exception {
+                // Named in reverse, so neither name order nor a hash order matches the column order
+                List<String> headers = new ArrayList<>();
+                for (int c = 40; c > 0; c--) {
+                        headers.add("column" + c);
+                }
+                StringBuilder csv = new StringBuilder(String.join(",", headers)).append('\n');
+                for (int row = 0; row < 3; row++) {
+                        for (int c = 0; c < headers.size(); c++) {
+                                csv.append(c == 0 ? "" : ",").append(row * 100 + c);
+                        }
+                        csv.append('\n');
+                }
+                DataAnalysisResponse ingested = ingest(csv.toString());
+                String dedupKey = dataAnalysisRepository.findById(ingested.id()).orElseThrow().getDedupKey();
+
+                List<AnalysisColumnRow> byId = dataAnalysisRepository.findColumnRowsById(ingested.id());
+                List<AnalysisColumnRow> byDedupKey = dataAnalysisRepository.findColumnRowsByDedupKey(dedupKey);
+
+                assertThat(byId).extracting(AnalysisColumnRow::columnName).containsExactlyElementsOf(headers);
+                assertThat(byId).allSatisfy(row -> {
+                        assertThat(row.id()).isEqualTo(ingested.id());
+                        assertThat(row.numberOfRows()).isEqualTo(3);
+                        assertThat(row.numberOfColumns()).isEqualTo(40);
+                });
+                assertThat(byDedupKey).usingRecursiveFieldByFieldElementComparator().isEqualTo(byId);
+                assertThat(byId).extracting(AnalysisColumnRow::toColumnStatistics)
+                                .isEqualTo(ingested.columnStatistics());
+                assertThat(read(ingested.id()).columnStatistics()).extracting(ColumnStatistics::columnName)
+                                .containsExactlyElementsOf(headers);
+        }
+
+        @Test
+        void shouldReadAnAnalysisWithoutColumnsAsOneRowWithoutAColumn() throws Exception {
+                DataAnalysisEntity empty = dataAnalysisRepository.save(DataAnalysisEntity.builder()
+                                .contentHash("c".repeat(64))
+                                .dedupKey("c".repeat(64))
+                                .numberOfRows(0)
+                                .numberOfColumns(0)
+                                .totalCharacters(0)
+                                .createdAt(OffsetDateTime.now())
+                                .percentileMode(PercentileMode.EXACT)
+                                .build());
+
+                List<AnalysisColumnRow> byId = dataAnalysisRepository.findColumnRowsById(empty.getId());
+                List<AnalysisColumnRow> byDedupKey = dataAnalysisRepository.findColumnRowsByDedupKey("c".repeat(64));
+
+                assertThat(byId).singleElement().satisfies(row -> {
+                        assertThat(row.id()).isEqualTo(empty.getId());
+                        assertThat(row.numberOfColumns()).isZero();
+                        assertThat(row.hasColumn()).isFalse();
+                });
+                assertThat(byDedupKey).usingRecursiveFieldByFieldElementComparator().isEqualTo(byId);
+
+                DataAnalysisResponse stored = read(empty.getId());
+                assertThat(stored.numberOfColumns()).isZero();
+                assertThat(stored.columnStatistics()).isEmpty();
+        }
+
+        @Test
+        void shouldReadNoRowsForAnUnknownAnalysis() {
+                assertThat(dataAnalysisRepository.findColumnRowsById(Long.MAX_VALUE)).isEmpty();
+                assertThat(dataAnalysisRepository.findColumnRowsByDedupKey("0".repeat(64))).isEmpty();
+        }
+}
@@ -0,0 +1,60 @@
+package com.sujon.spring_data_analysis_api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for saving an analysis in JDBC batches, counted through Hibernate's
+ * statistics: a batched insert prepares its statement once however many rows it adds.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchedPersistenceTest extends AnalysisApiTestSupport {
+
+        private static final int COLUMNS = 500;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        private Statistics statistics;
+
+        @BeforeEach
+        void setUp() {
+                statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                statistics.clear();
+        }
+
+        @Test
+        void shouldInsertAWideAnalysisInBatches() throws Exception {
+                StringBuilder csv = new StringBuilder();
+                for (int c = 0; c < COLUMNS; c++) {
+                        csv.append(c == 0 ? "" : ",").append("column").append(c);
+                }
+                for (int row = 0; row < 3; row++) {
+                        csv.append('\n');
+                        for (int c = 0; c < COLUMNS; c++) {
+                                csv.append(c == 0 ? "" : ",").append(row * COLUMNS + c);
+                        }
+                }
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csv.toString()))
+                                .andExpect(status().isOk());
+
+                // The analysis, its original content and a row per column
+                assertThat(statistics.getEntityInsertCount()).isEqualTo(COLUMNS + 2);
+                // One insert statement per table and a few sequence calls, not one statement per row
+                assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+                assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        }
+}
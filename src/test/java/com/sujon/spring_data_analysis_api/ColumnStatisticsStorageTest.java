@@ -0,0 +1,126 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.PercentileMode;
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
+import com.sujon.spring_data_analysis_api.repository.ColumnStatisticsRepository;
+import com.sujon.spring_data_analysis_api.repository.entity.ColumnStatisticsEntity;
+import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import com.sujon.spring_data_analysis_api.service.storage.ColumnStatisticsMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for storing column statistics as one blob on the analysis row and
+ * for migrating analyses stored as rows, with the response cache disabled so every
+ * lookup reads the database.
+ */
+@SpringBootTest(properties = {
+        "analysis.storage.column-statistics=blob",
+        "analysis.storage.migration-batch-size=1",
+        "analysis.response-cache.max-weight=0B"
+})
+class ColumnStatisticsStorageTest extends AnalysisApiTestSupport {
+
+        @Autowired
+        private ColumnStatisticsRepository columnStatisticsRepository;
+
+        @Autowired
+        private ColumnStatisticsMigration columnStatisticsMigration;
+
+        @Test
+        void shouldStoreColumnStatisticsAsOneBlob(
+                        @Value("classpath:test-data/with-nulls.csv") Resource withNullsCsv) throws Exception {
+                DataAnalysisResponse ingested = ingest(withNullsCsv.getContentAsString(UTF_8));
+
+                assertThat(columnStatisticsRepository.count()).isZero();
+                assertThat(dataAnalysisRepository.findById(ingested.id()).orElseThrow().getColumnStatisticsBlob())
+                                .isNotEmpty();
+
+                DataAnalysisResponse stored = read(ingested.id());
+                assertThat(stored.alreadyExists()).isTrue();
+                assertThat(stored.columnStatistics()).isEqualTo(ingested.columnStatistics());
+        }
+
+        @Test
+        void shouldKeepNaNStatisticsApartFromMissingOnes() throws Exception {
+                DataAnalysisResponse ingested = ingest("reading,label\n1.5,a\nNaN,b\n3,c\n");
+                ColumnStatistics reading = ingested.columnStatistics().get(0);
+                assertThat(reading.isNumeric()).isTrue();
+                assertThat(reading.mean()).isNaN();
+                assertThat(ingested.columnStatistics().get(1).mean()).isNull();
+
+                DataAnalysisResponse stored = read(ingested.id());
+
+                assertThat(stored.columnStatistics()).isEqualTo(ingested.columnStatistics());
+                assertThat(stored.columnStatistics().get(0).mean()).isNaN();
+        }
+
+        @Test
+        void shouldMigrateColumnRowsIntoBlobs(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                DataAnalysisResponse ingested = ingest(simpleCsv.getContentAsString(UTF_8));
+                Long first = saveAsRows("a".repeat(64));
+                Long second = saveAsRows("b".repeat(64));
+                DataAnalysisResponse before = read(first);
+
+                assertThat(columnStatisticsMigration.migrate()).isEqualTo(2);
+
+                assertThat(columnStatisticsRepository.count()).isZero();
+                assertThat(read(first).columnStatistics()).isEqualTo(before.columnStatistics());
+                assertThat(read(second).columnStatistics()).isEqualTo(before.columnStatistics());
+                assertThat(read(ingested.id()).columnStatistics()).isEqualTo(ingested.columnStatistics());
+                assertThat(columnStatisticsMigration.migrate()).isZero();
+        }
+
+        // An analysis as stored before blobs, with one numeric and one text column
+        private Long saveAsRows(String contentHash) {
+                DataAnalysisEntity analysis = DataAnalysisEntity.builder()
+                                .contentHash(contentHash)
+                                .dedupKey(contentHash)
+                                .numberOfRows(3)
+                                .numberOfColumns(2)
+                                .totalCharacters(30)
+                                .createdAt(OffsetDateTime.now())
+                                .percentileMode(PercentileMode.EXACT)
+                                .build();
+                analysis.getColumnStatistics().addAll(List.of(
+                                ColumnStatisticsEntity.builder()
+                                                .dataAnalysis(analysis)
+                                                .columnName("number")
+                                                .nullCount(0)
+                                                .uniqueCount(3)
+                                                .uniqueCountMode(UniqueCountMode.EXACT)
+                                                .isNumeric(true)
+                                                .minValue(1.0)
+                                                .maxValue(3.0)
+                                                .meanValue(2.0)
+                                                .medianValue(2.0)
+                                                .standardDeviation(0.816)
+                                                .percentile25(1.5)
+                                                .percentile50(2.0)
+                                                .percentile75(2.5)
+                                                .percentile90(2.8)
+                                                .percentile95(2.9)
+                                                .percentile99(2.98)
+                                                .build(),
+                                ColumnStatisticsEntity.builder()
+                                                .dataAnalysis(analysis)
+                                                .columnName("team")
+                                                .nullCount(1)
+                                                .uniqueCount(2)
+                                                .uniqueCountMode(UniqueCountMode.EXACT)
+                                                .build()));
+                return dataAnalysisRepository.save(analysis).getId();
+        }
+}
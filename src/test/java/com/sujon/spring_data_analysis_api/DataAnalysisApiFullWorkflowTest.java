@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
 import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
 import com.sujon.spring_data_analysis_api.repository.entity.DataAnalysisEntity;
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,17 +12,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.hasItem;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.io.ByteArrayInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -48,12 +56,16 @@ class DataAnalysisApiFullWorkflowTest {
     @Autowired
     private DataAnalysisRepository dataAnalysisRepository;
 
+    @Autowired
+    private ContentHashIndex contentHashIndex;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         dataAnalysisRepository.deleteAll();
+        contentHashIndex.clear();
     }
 
     @Test
@@ -157,6 +169,34 @@ class DataAnalysisApiFullWorkflowTest {
                 .anyMatch(stat -> stat.getColumnName().equals("team") && stat.getUniqueCount() == 3);
     }
 
+    @Test
+    void shouldPersistWideCsvWithColumnsInOrder() throws Exception {
+        int columns = 500;
+        StringBuilder csvData = new StringBuilder();
+        for (int c = 0; c < columns; c++) {
+            csvData.append(c == 0 ? "" : ",").append("column").append(c);
+        }
+        for (int row = 0; row < 3; row++) {
+            csvData.append('\n');
+            for (int c = 0; c < columns; c++) {
+                csvData.append(c == 0 ? "" : ",").append(row * columns + c);
+            }
+        }
+
+        String responseBody = performAndLog(post("/api/analysis/ingestCsv")
+                .contentType(TEXT_PLAIN)
+                .content(csvData.toString()));
+        DataAnalysisResponse response = objectMapper.readValue(responseBody, DataAnalysisResponse.class);
+
+        // Read back from the database rather than the response cache
+        var rows = dataAnalysisRepository.findColumnRowsById(response.id());
+        assertThat(rows).hasSize(columns);
+        for (int c = 0; c < columns; c++) {
+            assertThat(rows.get(c).columnName()).isEqualTo("column" + c);
+            assertThat(rows.get(c).minValue()).isEqualTo((double) c);
+        }
+    }
+
     @Test
     void shouldRetrievePreviousAnalysisById(
             @Value("classpath:test-data/simple.csv") Resource simpleCsv
@@ -331,4 +371,40 @@ class DataAnalysisApiFullWorkflowTest {
         assertThat(downloadedContent).contains("\"numberOfColumns\" : " + response.numberOfColumns());
     }
 
+    @Test
+    void shouldDownloadGzippedJsonWhenAccepted(@Value("classpath:test-data/simple.csv") Resource simpleCsv)
+            throws Exception {
+        String csvData = simpleCsv.getContentAsString(UTF_8);
+
+        DataAnalysisResponse response = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                .contentType(TEXT_PLAIN)
+                .content(csvData)), DataAnalysisResponse.class);
+
+        MockHttpServletResponse plain = mockMvc.perform(get("/api/analysis/{id}/download.json", response.id()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn().getResponse();
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/analysis/{id}/download.json", response.id())
+                        .header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse();
+
+        byte[] decompressed;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            decompressed = in.readAllBytes();
+        }
+        assertThat(decompressed).isEqualTo(plain.getContentAsByteArray());
+        assertThat(gzipped.getContentAsByteArray().length).isLessThan(decompressed.length);
+
+        // Served from the cache until the analysis is deleted
+        mockMvc.perform(get("/api/analysis/{id}/download.json", response.id()))
+                .andExpect(content().bytes(plain.getContentAsByteArray()));
+        mockMvc.perform(delete("/api/analysis/{id}", response.id()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/analysis/{id}/download.json", response.id()))
+                .andExpect(status().isNotFound());
+    }
+
 }
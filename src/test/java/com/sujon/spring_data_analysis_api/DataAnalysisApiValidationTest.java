@@ -3,6 +3,10 @@ package com.sujon.spring_data_analysis_api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
 import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import com.sujon.spring_data_analysis_api.repository.OriginalDataRepository;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex;
+import com.sujon.spring_data_analysis_api.service.storage.CompressedText;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +20,7 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -36,12 +41,22 @@ class DataAnalysisApiValidationTest {
         @Autowired
         private DataAnalysisRepository dataAnalysisRepository;
 
+        @Autowired
+        private ContentHashIndex contentHashIndex;
+
+        @Autowired
+        private DataAnalysisService dataAnalysisService;
+
+        @Autowired
+        private OriginalDataRepository originalDataRepository;
+
         @Autowired
         private ObjectMapper objectMapper;
 
         @BeforeEach
         void setUp() {
                 dataAnalysisRepository.deleteAll();
+                contentHashIndex.clear();
         }
 
         private String performAndLog(MockHttpServletRequestBuilder requestBuilder) throws Exception {
@@ -209,10 +224,37 @@ class DataAnalysisApiValidationTest {
                 assertThat(entity.getNumberOfRows()).isEqualTo(3);
                 assertThat(entity.getNumberOfColumns()).isEqualTo(3);
                 assertThat(entity.getTotalCharacters()).isEqualTo(csvData.length());
-                assertThat(entity.getOriginalData()).isEqualTo(csvData);
+                assertThat(dataAnalysisService.getOriginalData(entity.getId())).contains(csvData);
                 assertThat(entity.getCreatedAt()).isNotNull();
         }
 
+        @Test
+        void shouldStoreOriginalDataCompressedApartFromTheAnalysis() throws Exception {
+                StringBuilder csv = new StringBuilder("id,team,points\n");
+                for (int i = 0; i < 20000; i++) {
+                        csv.append(i).append(",team-").append(i % 10).append(',').append(i % 26).append('\n');
+                }
+                String csvData = csv.toString();
+
+                DataAnalysisResponse ingested = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData)), DataAnalysisResponse.class);
+                DataAnalysisResponse streamed = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv/stream")
+                                .contentType(TEXT_PLAIN)
+                                .content("id\n1\n")), DataAnalysisResponse.class);
+
+                byte[] stored = originalDataRepository.findById(ingested.id()).orElseThrow().getContent();
+                assertThat(stored[0]).isEqualTo(CompressedText.DEFLATE);
+                assertThat(stored.length).isLessThan(csvData.length() / 3);
+                assertThat(dataAnalysisService.getOriginalData(ingested.id())).contains(csvData);
+                assertThat(dataAnalysisService.getOriginalData(streamed.id())).isEmpty();
+
+                mockMvc.perform(delete("/api/analysis/" + ingested.id()))
+                                .andExpect(status().isNoContent());
+
+                assertThat(originalDataRepository.existsById(ingested.id())).isFalse();
+        }
+
         @Test
         void shouldPersistColumnStatisticsEntities(
                         @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
@@ -282,4 +324,175 @@ class DataAnalysisApiValidationTest {
                                 .contentType(TEXT_PLAIN)
                                 .content(""));
         }
+
+        @Test
+        void shouldAnalyzeStreamedCsvLargerThanFiveMegabytes() throws Exception {
+                StringBuilder csv = new StringBuilder("id,name\n");
+                for (int i = 0; csv.length() < 6 * 1024 * 1024; i++) {
+                        csv.append(i).append(",driver-").append(i % 20).append('\n');
+                }
+                String csvData = csv.toString();
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isPayloadTooLarge());
+
+                String responseBody = mockMvc.perform(post("/api/analysis/ingestCsv/stream")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                DataAnalysisResponse response = objectMapper.readValue(responseBody, DataAnalysisResponse.class);
+
+                assertThat(response.numberOfColumns()).isEqualTo(2);
+                assertThat(response.numberOfRows()).isEqualTo((int) csvData.lines().count() - 1);
+                assertThat(response.totalCharacters()).isEqualTo(csvData.length());
+                assertThat(response.columnStatistics())
+                                .anyMatch(stat -> stat.columnName().equals("id") && stat.isNumeric())
+                                .anyMatch(stat -> stat.columnName().equals("name") && stat.uniqueCount() == 20);
+        }
+
+        @Test
+        void shouldMatchStreamedCsvWithPreviouslyIngestedContent(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                String csvData = simpleCsv.getContentAsString(UTF_8);
+
+                DataAnalysisResponse ingested = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData)), DataAnalysisResponse.class);
+
+                DataAnalysisResponse streamed = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv/stream")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData.replace("\n", "\r\n"))), DataAnalysisResponse.class);
+
+                assertThat(streamed.alreadyExists()).isTrue();
+                assertThat(streamed.id()).isEqualTo(ingested.id());
+                assertThat(dataAnalysisRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void shouldAnalyzeAgainAfterPreviousAnalysisIsDeleted(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                String csvData = simpleCsv.getContentAsString(UTF_8);
+
+                DataAnalysisResponse first = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData)), DataAnalysisResponse.class);
+                DataAnalysisResponse repeated = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData)), DataAnalysisResponse.class);
+
+                assertThat(repeated.alreadyExists()).isTrue();
+                assertThat(repeated.id()).isEqualTo(first.id());
+
+                mockMvc.perform(delete("/api/analysis/" + first.id()))
+                                .andExpect(status().isNoContent());
+
+                DataAnalysisResponse second = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData)), DataAnalysisResponse.class);
+
+                assertThat(second.alreadyExists()).isFalse();
+                assertThat(second.id()).isNotEqualTo(first.id());
+                assertThat(dataAnalysisRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void shouldRejectStreamedCsvContainingSonnyHayes(
+                        @Value("classpath:test-data/sonny-hayes.csv") Resource sonnyHayesCsv) throws Exception {
+                String csvData = sonnyHayesCsv.getContentAsString(UTF_8);
+
+                mockMvc.perform(post("/api/analysis/ingestCsv/stream")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+        }
+
+        @Test
+        void shouldRejectBlockedContentAnywhereInTheUpload() throws Exception {
+                StringBuilder csv = new StringBuilder("id,name\n");
+                for (int i = 0; i < 20000; i++) {
+                        csv.append(i).append(",driver-").append(i % 20).append('\n');
+                }
+                // On a line that is not a valid row, and past the first read buffer
+                csv.append("Sonny Hayes\n");
+
+                for (String endpoint : new String[]{"/api/analysis/ingestCsv", "/api/analysis/ingestCsv/stream"}) {
+                        String body = mockMvc.perform(post(endpoint)
+                                        .contentType(TEXT_PLAIN)
+                                        .content(csv.toString()))
+                                        .andExpect(status().isBadRequest())
+                                        .andReturn().getResponse().getContentAsString();
+
+                        assertThat(body).contains("CSV data containing 'Sonny Hayes' is not allowed");
+                }
+
+                assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+        }
+
+        @Test
+        void shouldParseQuotedFieldsWithCommasQuotesAndLineBreaks(
+                        @Value("classpath:test-data/quoted.csv") Resource quotedCsv) throws Exception {
+                String csvData = quotedCsv.getContentAsString(UTF_8);
+
+                for (String endpoint : new String[]{"/api/analysis/ingestCsv", "/api/analysis/ingestCsv/stream"}) {
+                        DataAnalysisResponse response = objectMapper.readValue(performAndLog(post(endpoint)
+                                        .contentType(TEXT_PLAIN)
+                                        .content(csvData)), DataAnalysisResponse.class);
+
+                        assertThat(response.numberOfColumns()).isEqualTo(3);
+                        assertThat(response.numberOfRows()).isEqualTo(3);
+                        assertThat(response.columnStatistics().get(1).columnName()).isEqualTo("comment, free text");
+                        assertThat(response.columnStatistics().get(1).nullCount()).isEqualTo(1);
+                        assertThat(response.columnStatistics().get(2).isNumeric()).isTrue();
+                        assertThat(response.columnStatistics().get(2).mean()).isEqualTo(20.0);
+                }
+        }
+
+        @Test
+        void shouldParseQuotedFieldLongerThanTheScratchBuffer() throws Exception {
+                String text = "quoted, text ".repeat(100);
+
+                DataAnalysisResponse response = objectMapper.readValue(performAndLog(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content("id,note\n1,\"" + text + "\"\n2,short\n")), DataAnalysisResponse.class);
+
+                assertThat(response.numberOfRows()).isEqualTo(2);
+                assertThat(response.columnStatistics().get(1).uniqueCount()).isEqualTo(2);
+        }
+
+        @Test
+        void shouldRejectUnterminatedQuotedField() throws Exception {
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content("id,name\n1,\"never closed\n2,b\n"))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+        }
+
+        @Test
+        void shouldRejectUnknownPercentileModeOrAccuracy(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                String csvData = simpleCsv.getContentAsString(UTF_8);
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .param("percentiles", "fast")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isBadRequest());
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .param("percentiles", "approx")
+                                .param("accuracy", "0.5")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+        }
 }
@@ -0,0 +1,190 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.AnalysisOptions;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for spooled uploads and server-side imports, both analyzed through
+ * a memory mapping.
+ */
+@SpringBootTest(properties = "analysis.file-ingest.max-spool-size=1KB")
+class FileIngestTest extends AnalysisApiTestSupport {
+
+        @TempDir
+        static Path spoolDirectory;
+
+        @TempDir
+        static Path importDirectory;
+
+        @Autowired
+        private DataAnalysisService dataAnalysisService;
+
+        @DynamicPropertySource
+        static void fileIngestDirectories(DynamicPropertyRegistry registry) throws IOException {
+                // Left by an instance that crashed, so nothing holds its lock and startup deletes it
+                Path abandoned = Files.createDirectories(spoolDirectory.resolve("instance-abandoned"));
+                Files.createFile(abandoned.resolve(".lock"));
+                Files.writeString(abandoned.resolve("upload-1.csv"), "id\n1\n");
+
+                registry.add("analysis.file-ingest.spool-directory", spoolDirectory::toString);
+                registry.add("analysis.file-ingest.import-directory", importDirectory::toString);
+        }
+
+        @Test
+        void shouldAnalyzeSpooledUploadLikeAnInMemoryOne(
+                        @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv) throws Exception {
+                String csvData = numericCsv.getContentAsString(UTF_8);
+
+                DataAnalysisResponse inMemory = analyze(post("/api/analysis/ingestCsv"), csvData);
+                DataAnalysisResponse spooled = analyze(post("/api/analysis/ingestCsv/file"), csvData);
+
+                assertThat(spooled.alreadyExists()).isTrue();
+                assertThat(spooled.id()).isEqualTo(inMemory.id());
+                assertThat(spooled.columnStatistics()).isEqualTo(inMemory.columnStatistics());
+                assertThat(spooledFiles()).isEmpty();
+        }
+
+        @Test
+        void shouldDecodeMultiByteCharactersLikeAnInMemoryUpload() throws Exception {
+                String csvData = "city,population\nZürich,421878\nKraków,779115\n東京,13960000\n";
+
+                DataAnalysisResponse spooled = analyze(post("/api/analysis/ingestCsv/file"), csvData);
+                DataAnalysisResponse inMemory = analyze(post("/api/analysis/ingestCsv"), csvData);
+
+                assertThat(inMemory.alreadyExists()).isTrue();
+                assertThat(inMemory.id()).isEqualTo(spooled.id());
+                assertThat(spooled.totalCharacters()).isEqualTo(csvData.length());
+                assertThat(spooled.columnStatistics().get(0).uniqueCount()).isEqualTo(3);
+        }
+
+        @Test
+        void shouldDeleteSpooledFileWhenAnalysisFails() throws Exception {
+                mockMvc.perform(post("/api/analysis/ingestCsv/file")
+                                .contentType(TEXT_PLAIN)
+                                .content("a,b\n1,2,3\n"))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(spooledFiles()).isEmpty();
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        @Test
+        void shouldRejectSpooledUploadPastTheSizeLimit() throws Exception {
+                StringBuilder csvData = new StringBuilder("id,value\n");
+                for (int i = 0; csvData.length() <= 1024; i++) {
+                        csvData.append(i).append(',').append(i * 2).append('\n');
+                }
+
+                mockMvc.perform(post("/api/analysis/ingestCsv/file")
+                                .contentType(TEXT_PLAIN)
+                                .content(csvData.toString()))
+                                .andExpect(status().isPayloadTooLarge());
+
+                assertThat(spooledFiles()).isEmpty();
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        @Test
+        void shouldSpoolIntoItsOwnLockedDirectoryAfterDeletingAbandonedOnes() throws Exception {
+                try (Stream<Path> directories = Files.list(spoolDirectory)) {
+                        assertThat(directories.filter(Files::isDirectory).toList())
+                                        .singleElement()
+                                        .satisfies(directory -> {
+                                                assertThat(directory.getFileName().toString()).startsWith("instance-");
+                                                assertThat(directory.resolve(".lock")).exists();
+                                        });
+                }
+        }
+
+        @Test
+        void shouldAnalyzeFileFromImportDirectory() throws Exception {
+                Path nested = Files.createDirectories(importDirectory.resolve("daily"));
+                Files.writeString(nested.resolve("scores.csv"), "id,score\n1,10\n2,20\n3,30\n");
+
+                DataAnalysisResponse response = analyze(post("/api/analysis/import")
+                                .param("file", "daily/scores.csv"), null);
+
+                assertThat(response.numberOfRows()).isEqualTo(3);
+                assertThat(response.columnStatistics().get(1).mean()).isEqualTo(20.0);
+                assertThat(Files.exists(nested.resolve("scores.csv"))).isTrue();
+        }
+
+        @Test
+        void shouldAnswerAFileAnalyzedBeforeWithoutParsingIt() throws Exception {
+                Path file = Files.writeString(importDirectory.resolve("repeated.csv"), "id,score\n1,10\n2,20\n");
+                List<Long> firstProgress = new ArrayList<>();
+                List<Long> secondProgress = new ArrayList<>();
+
+                DataAnalysisResponse first = dataAnalysisService.analyzeCsvFile(file, AnalysisOptions.DEFAULT,
+                                firstProgress::add);
+                DataAnalysisResponse second = dataAnalysisService.analyzeCsvFile(file, AnalysisOptions.DEFAULT,
+                                secondProgress::add);
+
+                assertThat(firstProgress).isNotEmpty();
+                assertThat(second.alreadyExists()).isTrue();
+                assertThat(second.id()).isEqualTo(first.id());
+                // Progress is reported by the parse, which a stored analysis skips
+                assertThat(secondProgress).isEmpty();
+        }
+
+        @Test
+        void shouldNotImportFilesOutsideTheImportDirectory() throws Exception {
+                Path outside = Files.writeString(importDirectory.getParent().resolve("outside-" + System.nanoTime() + ".csv"),
+                                "id\n1\n");
+                try {
+                        for (String name : new String[]{"../" + outside.getFileName(), outside.toString(), "missing.csv"}) {
+                                mockMvc.perform(post("/api/analysis/import").param("file", name))
+                                                .andExpect(status().isNotFound());
+                        }
+                        Files.createSymbolicLink(importDirectory.resolve("link.csv"), outside);
+                        mockMvc.perform(post("/api/analysis/import").param("file", "link.csv"))
+                                        .andExpect(status().isNotFound());
+                } finally {
+                        Files.deleteIfExists(importDirectory.resolve("link.csv"));
+                        Files.delete(outside);
+                }
+
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        // Uploads still spooled by any instance
+        private List<Path> spooledFiles() throws IOException {
+                try (Stream<Path> files = Files.walk(spoolDirectory)) {
+                        return files.filter(file -> file.getFileName().toString().startsWith("upload-")).toList();
+                }
+        }
+
+        private DataAnalysisResponse analyze(MockHttpServletRequestBuilder request, String csvData) throws Exception {
+                if (csvData != null) {
+                        request.contentType(new MediaType(TEXT_PLAIN, UTF_8)).content(csvData);
+                }
+                String body = mockMvc.perform(request)
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, DataAnalysisResponse.class);
+        }
+}
@@ -0,0 +1,160 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for chunked parsing and the parallel statistics phase, run with
+ * zero thresholds so every CSV goes through the analysis pool. The pool is a spy, so a
+ * test can tell whether any chunk was submitted to it.
+ */
+@SpringBootTest(properties = {
+        "analysis.parallel.statistics-threshold=0",
+        "analysis.parallel.parse-threshold=0",
+        "analysis.parallel.threads=4"
+})
+class ParallelAnalysisTest extends AnalysisApiTestSupport {
+
+        private static final int COLUMNS = 40;
+        private static final int ROWS = 301;
+
+        @MockitoSpyBean
+        private ForkJoinPool analysisPool;
+
+        @Test
+        void shouldComputeEveryColumnOfAWideCsvInParallel() throws Exception {
+                StringBuilder csv = new StringBuilder();
+                for (int c = 0; c < COLUMNS; c++) {
+                        csv.append(c == 0 ? "" : ",").append("col").append(c);
+                }
+                csv.append('\n');
+                for (int r = 0; r < ROWS; r++) {
+                        for (int c = 0; c < COLUMNS; c++) {
+                                csv.append(c == 0 ? "" : ",").append(value(r, c));
+                        }
+                        csv.append('\n');
+                }
+
+                DataAnalysisResponse response = ingest(csv.toString());
+
+                assertThat(response.numberOfRows()).isEqualTo(ROWS);
+                List<ColumnStatistics> statistics = response.columnStatistics();
+                assertThat(statistics).hasSize(COLUMNS);
+                for (int c = 0; c < COLUMNS; c++) {
+                        double[] values = new double[ROWS];
+                        for (int r = 0; r < ROWS; r++) {
+                                values[r] = value(r, c);
+                        }
+                        Arrays.sort(values);
+
+                        ColumnStatistics column = statistics.get(c);
+                        assertThat(column.columnName()).isEqualTo("col" + c);
+                        assertThat(column.isNumeric()).isTrue();
+                        assertThat(column.min()).isEqualTo(values[0]);
+                        assertThat(column.max()).isEqualTo(values[ROWS - 1]);
+                        assertThat(column.median()).isEqualTo(values[ROWS / 2]);
+                }
+        }
+
+        @Test
+        void shouldCountRowsAcrossChunksLikeASequentialParse() throws Exception {
+                StringBuilder csv = new StringBuilder("id,name\r\n");
+                for (int r = 0; r < 1000; r++) {
+                        csv.append(r).append(",name").append(r % 37).append(r % 10 == 0 ? "\r\n\r\n" : "\n");
+                }
+
+                DataAnalysisResponse response = ingest(csv.toString());
+
+                assertThat(response.numberOfRows()).isEqualTo(1000);
+                assertThat(response.columnStatistics().get(0).uniqueCount()).isEqualTo(1000);
+                assertThat(response.columnStatistics().get(1).uniqueCount()).isEqualTo(37);
+                assertThat(response.columnStatistics().get(1).nullCount()).isZero();
+        }
+
+        @Test
+        void shouldFingerprintChunkedContentLikeASequentialParse() throws Exception {
+                StringBuilder csv = new StringBuilder("id,score\n");
+                for (int r = 0; r < 1000; r++) {
+                        csv.append(r).append(',').append(r % 13).append('\n');
+                }
+                // Trailing whitespace, CRLF and blank lines are normalized away
+                String reformatted = csv.toString().replace("\n", " \r\n\r\n");
+
+                DataAnalysisResponse first = ingest(csv.toString());
+                DataAnalysisResponse second = ingest(reformatted);
+
+                assertThat(second.alreadyExists()).isTrue();
+                assertThat(second.id()).isEqualTo(first.id());
+        }
+
+        @Test
+        void shouldAnswerADuplicateWithoutParsingOrProfilingItAgain() throws Exception {
+                StringBuilder csv = new StringBuilder("id,score\n");
+                for (int r = 0; r < 1000; r++) {
+                        csv.append(r).append(',').append(r % 13).append('\n');
+                }
+                DataAnalysisResponse first = ingest(csv.toString());
+                clearInvocations(analysisPool);
+
+                // A leading blank line would not parse, but the stored analysis is found first
+                DataAnalysisResponse second = ingest("\r\n  " + csv);
+
+                assertThat(second.alreadyExists()).isTrue();
+                assertThat(second.id()).isEqualTo(first.id());
+                // No chunk parsed and no column profiled on the pool
+                verify(analysisPool, never()).submit(any(Runnable.class));
+        }
+
+        @Test
+        void shouldRejectRaggedRowInAnyChunk() throws Exception {
+                StringBuilder csv = new StringBuilder("a,b\n");
+                for (int r = 0; r < 1000; r++) {
+                        csv.append(r == 900 ? "1,2,3" : r + "," + r).append('\n');
+                }
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csv.toString()))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        @Test
+        void shouldRejectBlockedContentBeforeParsingAnyChunk() throws Exception {
+                StringBuilder csv = new StringBuilder("id,name\n");
+                for (int r = 0; r < 1000; r++) {
+                        csv.append(r).append(",driver-").append(r % 20).append('\n');
+                }
+                // In the last of the four chunks
+                csv.append("1000,Sonny Hayes\n");
+
+                mockMvc.perform(post("/api/analysis/ingestCsv")
+                                .contentType(TEXT_PLAIN)
+                                .content(csv.toString()))
+                                .andExpect(status().isBadRequest());
+
+                verify(analysisPool, never()).submit(any(Runnable.class));
+                assertThat(dataAnalysisRepository.count()).isZero();
+        }
+
+        private static int value(int row, int column) {
+                return (row * 7919 + column * 104729) % 1000;
+        }
+}
@@ -0,0 +1,160 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test comparing request throughput and p99 latency with requests served on
+ * platform threads and on virtual threads. Each mode starts the application on a
+ * random port and is driven by many concurrent clients, each uploading distinct CSVs
+ * and reading them back.
+ * <p>
+ * Excluded from {@code ./gradlew test}; run with {@code ./gradlew loadTest}. The
+ * numbers are printed rather than asserted, since they depend on the machine.
+ */
+@Tag("load")
+class RequestThreadLoadTest {
+
+        private static final int CLIENTS = 400;
+        private static final int REQUESTS_PER_CLIENT = 20;
+        private static final int ROWS_PER_UPLOAD = 2000;
+
+        @Test
+        void shouldCompareThroughputAndLatencyOfPlatformAndVirtualThreads() throws Exception {
+                LoadResult platform = runLoad(false);
+                LoadResult virtual = runLoad(true);
+
+                System.out.printf("platform threads: %s%n", platform);
+                System.out.printf("virtual threads:  %s%n", virtual);
+                assertThat(platform.failures()).isZero();
+                assertThat(virtual.failures()).isZero();
+        }
+
+        private LoadResult runLoad(boolean virtualThreads) throws Exception {
+                try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DataAnalysisApplication.class)
+                                .profiles("test")
+                                .properties(
+                                                "server.port=0",
+                                                "spring.threads.virtual.enabled=" + virtualThreads,
+                                                // Measure queueing in each mode rather than admission rejections
+                                                "analysis.admission.max-concurrent-analyses=" + CLIENTS,
+                                                "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1")
+                                .run()) {
+                        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                        String baseUrl = "http://localhost:" + port + "/api/analysis";
+                        HttpClient client = HttpClient.newBuilder()
+                                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                                        .build();
+
+                        // Warm up the parser and the JIT before measuring
+                        run(client, baseUrl, "warmup-" + virtualThreads, 50, 10);
+                        context.getBean(DataAnalysisRepository.class).deleteAll();
+
+                        return run(client, baseUrl, "load-" + virtualThreads, CLIENTS, REQUESTS_PER_CLIENT);
+                }
+        }
+
+        private LoadResult run(HttpClient client, String baseUrl, String prefix, int clients, int requestsPerClient)
+                        throws Exception {
+                long[][] latencies = new long[clients][];
+                AtomicInteger failures = new AtomicInteger();
+                long start = System.nanoTime();
+                try (ExecutorService drivers = Executors.newVirtualThreadPerTaskExecutor()) {
+                        List<Future<?>> running = new ArrayList<>();
+                        for (int c = 0; c < clients; c++) {
+                                int clientIndex = c;
+                                running.add(drivers.submit(() -> {
+                                        latencies[clientIndex] = drive(client, baseUrl, prefix + "-" + clientIndex,
+                                                        requestsPerClient, failures);
+                                        return null;
+                                }));
+                        }
+                        for (Future<?> driver : running) {
+                                driver.get();
+                        }
+                }
+                long elapsed = System.nanoTime() - start;
+
+                long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+                return new LoadResult(all.length, failures.get(), all.length * 1e9 / elapsed,
+                                all[(int) Math.ceil(all.length * 0.50) - 1] / 1e6,
+                                all[(int) Math.ceil(all.length * 0.99) - 1] / 1e6);
+        }
+
+        /**
+         * Uploads a distinct CSV and then reads the stored analysis back, alternately.
+         * @return the latency of each request in nanoseconds
+         */
+        private long[] drive(HttpClient client, String baseUrl, String clientId, int requests, AtomicInteger failures)
+                        throws Exception {
+                long[] latencies = new long[requests];
+                String lastId = null;
+                for (int r = 0; r < requests; r++) {
+                        HttpRequest request;
+                        if (lastId == null || r % 2 == 0) {
+                                request = HttpRequest.newBuilder(URI.create(baseUrl + "/ingestCsv"))
+                                                .header("Content-Type", "text/csv")
+                                                .POST(HttpRequest.BodyPublishers.ofString(csv(clientId + "-" + r)))
+                                                .build();
+                        } else {
+                                request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + lastId)).GET().build();
+                        }
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[r] = System.nanoTime() - sent;
+                        if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                        } else if (request.method().equals("POST")) {
+                                lastId = idOf(response.body());
+                        }
+                }
+                return latencies;
+        }
+
+        private static String csv(String seed) {
+                StringBuilder csv = new StringBuilder("name,value,score\n");
+                int hash = seed.hashCode();
+                for (int row = 0; row < ROWS_PER_UPLOAD; row++) {
+                        csv.append(seed).append('-').append(row % 97).append(',')
+                                        .append((row * 31 + hash) % 10007).append(',')
+                                        .append(row % 13).append(".5\n");
+                }
+                return csv.toString();
+        }
+
+        private static String idOf(String body) {
+                int start = body.indexOf("\"id\":") + 5;
+                int end = start;
+                while (Character.isDigit(body.charAt(end))) {
+                        end++;
+                }
+                return body.substring(start, end);
+        }
+
+        private record LoadResult(int requests, int failures, double throughput, double p50Millis, double p99Millis) {
+
+                @Override
+                public String toString() {
+                        return String.format("%d requests, %d failed, %.0f req/s, p50 %.1f ms, p99 %.1f ms",
+                                        requests, failures, throughput, p50Millis, p99Millis);
+                }
+        }
+}
@@ -0,0 +1,137 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.repository.AnalysisColumnRow;
+import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository;
+import com.sujon.spring_data_analysis_api.service.DataAnalysisService;
+import com.sujon.spring_data_analysis_api.service.cache.AnalysisResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the response cache behind GET /api/analysis/{id}, with a weight
+ * limit that holds one small analysis but not two. The repository is a spy, so a test can
+ * delete an analysis at a chosen point of a read.
+ */
+@SpringBootTest(properties = "analysis.response-cache.max-weight=2KB")
+@MockitoSpyBean(types = DataAnalysisRepository.class)
+class ResponseCacheTest extends AnalysisApiTestSupport {
+
+        @Autowired
+        private DataAnalysisService dataAnalysisService;
+
+        @Autowired
+        private AnalysisResponseCache analysisResponseCache;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        void shouldAnswerFromCacheFilledOnIngest(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                DataAnalysisResponse ingested = ingest(simpleCsv.getContentAsString(UTF_8));
+                double hits = count("cache.gets", "result", "hit");
+
+                // Removed around the service, so only the cache can still answer
+                dataAnalysisRepository.deleteById(ingested.id());
+
+                DataAnalysisResponse cached = read(ingested.id());
+
+                assertThat(cached.alreadyExists()).isTrue();
+                assertThat(cached.columnStatistics()).isEqualTo(ingested.columnStatistics());
+                assertThat(count("cache.gets", "result", "hit")).isEqualTo(hits + 1);
+        }
+
+        @Test
+        void shouldInvalidateOnDelete(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                DataAnalysisResponse ingested = ingest(simpleCsv.getContentAsString(UTF_8));
+
+                mockMvc.perform(delete("/api/analysis/" + ingested.id()))
+                                .andExpect(status().isNoContent());
+
+                mockMvc.perform(get("/api/analysis/" + ingested.id()))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void shouldNotCacheAnAnalysisDeletedWhileItWasRead(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                Long id = ingest(simpleCsv.getContentAsString(UTF_8)).id();
+                analysisResponseCache.remove(id);
+                List<AnalysisColumnRow> rows = dataAnalysisRepository.findColumnRowsById(id);
+                // The delete commits after the read has loaded the rows but before they are cached
+                doAnswer(invocation -> {
+                        dataAnalysisService.deleteAnalysisById(id);
+                        return rows;
+                }).when(dataAnalysisRepository).findColumnRowsById(id);
+
+                mockMvc.perform(get("/api/analysis/" + id + "/download.json"))
+                                .andExpect(status().isOk());
+
+                assertThat(analysisResponseCache.get(id)).isNull();
+                mockMvc.perform(get("/api/analysis/" + id))
+                                .andExpect(status().isNotFound());
+                mockMvc.perform(get("/api/analysis/" + id + "/download.json"))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void shouldEvictLeastRecentlyUsedPastTheWeightLimit(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv,
+                        @Value("classpath:test-data/with-nulls.csv") Resource withNullsCsv) throws Exception {
+                double evictions = count("cache.evictions");
+                double misses = count("cache.gets", "result", "miss");
+
+                DataAnalysisResponse first = ingest(simpleCsv.getContentAsString(UTF_8));
+                ingest(withNullsCsv.getContentAsString(UTF_8));
+
+                assertThat(count("cache.evictions")).isGreaterThan(evictions);
+
+                // Evicted, so loaded from the database and cached again
+                mockMvc.perform(get("/api/analysis/" + first.id()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.numberOfRows").value(3));
+                assertThat(count("cache.gets", "result", "miss")).isEqualTo(misses + 1);
+        }
+
+        @Test
+        void shouldExposeCacheMetricsThroughActuator(
+                        @Value("classpath:test-data/simple.csv") Resource simpleCsv) throws Exception {
+                DataAnalysisResponse ingested = ingest(simpleCsv.getContentAsString(UTF_8));
+                mockMvc.perform(get("/api/analysis/" + ingested.id()))
+                                .andExpect(status().isOk());
+
+                mockMvc.perform(get("/actuator/metrics/cache.gets")
+                                .param("tag", "cache:analysis-responses")
+                                .param("tag", "result:hit"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.measurements[0].value").value(count("cache.gets", "result", "hit")));
+                mockMvc.perform(get("/actuator/metrics/cache.evictions")
+                                .param("tag", "cache:analysis-responses"))
+                                .andExpect(status().isOk());
+        }
+
+        private double count(String name, String... tags) {
+                return meterRegistry.get(name)
+                                .tag("cache", "analysis-responses")
+                                .tags(tags)
+                                .functionCounter()
+                                .count();
+        }
+}
@@ -3,7 +3,9 @@ package com.sujon.spring_data_analysis_api; // Package declaration for test clas
 import com.fasterxml.jackson.databind.ObjectMapper; // JSON parsing for response
 import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse; // Response DTO
 import com.sujon.spring_data_analysis_api.model.ColumnStatistics; // Column statistics model
+import com.sujon.spring_data_analysis_api.model.PercentileMode; // Percentile computation mode
 import com.sujon.spring_data_analysis_api.repository.DataAnalysisRepository; // Repository for cleanup
+import com.sujon.spring_data_analysis_api.service.dedup.ContentHashIndex; // Dedup index for cleanup
 import org.junit.jupiter.api.BeforeEach; // Setup annotation
 import org.junit.jupiter.api.Test; // Test annotation
 import org.springframework.beans.factory.annotation.Autowired; // Dependency injection
@@ -41,6 +43,9 @@ class StatisticalProfilingTest {
     @Autowired // Inject repository for database cleanup
     private DataAnalysisRepository dataAnalysisRepository;
 
+    @Autowired // Inject dedup index, reset along with the database
+    private ContentHashIndex contentHashIndex;
+
     @Autowired // Inject ObjectMapper for JSON parsing
     private ObjectMapper objectMapper;
 
@@ -63,6 +68,7 @@ class StatisticalProfilingTest {
     @BeforeEach // Run before each test
     void setUp() {
         dataAnalysisRepository.deleteAll(); // Clear database before each test
+        contentHashIndex.clear(); // Forget hashes of the deleted analyses
     }
 
     @Test // Test method annotation
@@ -204,6 +210,34 @@ class StatisticalProfilingTest {
         assertThat(scoreStats.standardDeviation()).isCloseTo(8.297, within(0.01)); // Std dev is ~8.297
     }
 
+    @Test // Test method annotation
+    void shouldCalculateSkewnessAndKurtosisCorrectly(
+            @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv // Load test CSV
+    ) throws Exception {
+        String csvData = numericCsv.getContentAsString(UTF_8); // Read CSV content
+
+        String responseBody = performAndLog(post("/api/analysis/ingestCsv") // POST to ingest endpoint
+                .contentType(TEXT_PLAIN) // Set content type
+                .content(csvData)); // Set request body
+
+        DataAnalysisResponse response = objectMapper.readValue(responseBody, DataAnalysisResponse.class); // Parse response
+
+        ColumnStatistics scoreStats = response.columnStatistics().stream() // Find score column stats
+                .filter(s -> s.columnName().equals("score")) // Filter by name
+                .findFirst().orElseThrow(); // Get or throw
+
+        // Population skewness = sqrt(n) * m3 / m2^1.5, excess kurtosis = n * m4 / m2^2 - 3
+        // with m2, m3, m4 the sums of 2nd, 3rd and 4th powers of deviations from the mean 82.5
+        assertThat(scoreStats.skewness()).isCloseTo(-0.0394, within(0.001)); // Nearly symmetric
+        assertThat(scoreStats.kurtosis()).isCloseTo(-1.3786, within(0.001)); // Flatter than normal
+
+        ColumnStatistics nameStats = response.columnStatistics().stream() // Find name column stats
+                .filter(s -> s.columnName().equals("name")) // Filter by name
+                .findFirst().orElseThrow(); // Get or throw
+        assertThat(nameStats.skewness()).isNull(); // No skewness for non-numeric
+        assertThat(nameStats.kurtosis()).isNull(); // No kurtosis for non-numeric
+    }
+
     @Test // Test method annotation
     void shouldCalculatePercentilesCorrectly(
             @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv // Load test CSV
@@ -332,6 +366,45 @@ class StatisticalProfilingTest {
         }
     }
 
+    @Test // Test method annotation
+    void shouldAcceptTheNumberFormsDoubleParseDoubleAccepts(
+            @Value("classpath:test-data/number-forms.csv") Resource numberFormsCsv // One form per column, then a 2
+    ) throws Exception {
+        String responseBody = performAndLog(post("/api/analysis/ingestCsv") // POST to ingest endpoint
+                .contentType(TEXT_PLAIN) // Set content type
+                .content(numberFormsCsv.getContentAsString(UTF_8))); // Set request body
+        DataAnalysisResponse response = objectMapper.readValue(responseBody, DataAnalysisResponse.class); // Parse response
+
+        assertNumeric(response, "exponent", 2.0, 100000.0); // 1e5
+        assertNumeric(response, "negative_zero", -0.0, 2.0); // -0 keeps its sign
+        assertNumeric(response, "infinity", 2.0, Double.POSITIVE_INFINITY); // Infinity literal
+        assertNumeric(response, "nan", 2.0, Double.NaN); // NaN sorts above every number
+        assertNumeric(response, "double_suffix", 1.0, 2.0); // 1d
+        assertNumeric(response, "hex_float", 2.0, 8.0); // 0x1p3
+        assertNumeric(response, "overflow", 2.0, Double.POSITIVE_INFINITY); // 1e400 overflows
+        assertNumeric(response, "padded", 2.0, 7.0); // Surrounding spaces are trimmed
+
+        for (String text : List.of("bare_exponent", "bare_sign", "bare_point", "bare_hex")) { // 1e, +, . and 0x
+            ColumnStatistics stats = statisticsOf(response, text); // Find column stats
+            assertThat(stats.isNumeric()).as(text).isFalse(); // Near misses are text
+            assertThat(stats.min()).as(text).isNull(); // No min
+            assertThat(stats.max()).as(text).isNull(); // No max
+        }
+    }
+
+    private static void assertNumeric(DataAnalysisResponse response, String column, double min, double max) {
+        ColumnStatistics stats = statisticsOf(response, column); // Find column stats
+        assertThat(stats.isNumeric()).as(column).isTrue(); // Every cell parsed as a number
+        assertThat(stats.min()).as(column).isEqualTo(Double.valueOf(min)); // Boxed, so -0.0 and NaN compare exactly
+        assertThat(stats.max()).as(column).isEqualTo(Double.valueOf(max)); // Largest value
+    }
+
+    private static ColumnStatistics statisticsOf(DataAnalysisResponse response, String column) {
+        return response.columnStatistics().stream() // Search all columns
+                .filter(s -> s.columnName().equals(column)) // Filter by name
+                .findFirst().orElseThrow(); // Get or throw
+    }
+
     @Test // Test method annotation
     void shouldReturnCachedStatisticsForDuplicateContent(
             @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv // Load test CSV
@@ -400,4 +473,72 @@ class StatisticalProfilingTest {
                 .findFirst().orElseThrow(); // Get or throw
         assertThat(podiumsStats.isNumeric()).isTrue(); // Should be numeric
     }
+
+    @Test // Test method annotation
+    void shouldReportApproximatePercentilesWhenRequested(
+            @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv // Load test CSV
+    ) throws Exception {
+        String csvData = numericCsv.getContentAsString(UTF_8); // Read CSV content
+
+        String responseBody = performAndLog(post("/api/analysis/ingestCsv") // POST to ingest endpoint
+                .param("percentiles", "approx") // Request sketch-based percentiles
+                .param("accuracy", "0.01") // Request 1% rank error
+                .contentType(TEXT_PLAIN) // Set content type
+                .content(csvData)); // Set request body
+
+        DataAnalysisResponse response = objectMapper.readValue(responseBody, DataAnalysisResponse.class); // Parse response
+        assertThat(response.percentileMode()).isEqualTo(PercentileMode.APPROX); // Mode is reported
+        assertThat(response.percentileAccuracy()).isEqualTo(0.01); // Accuracy is reported
+
+        ColumnStatistics scoreStats = response.columnStatistics().stream() // Find score column stats
+                .filter(s -> s.columnName().equals("score")) // Filter by name
+                .findFirst().orElseThrow(); // Get or throw
+
+        // A column this small fits in the sketch without compaction, so the values are exact
+        assertThat(scoreStats.min()).isEqualTo(70.0); // Minimum score
+        assertThat(scoreStats.max()).isEqualTo(95.0); // Maximum score
+        assertThat(scoreStats.mean()).isCloseTo(82.5, within(0.01)); // Mean score
+        assertThat(scoreStats.median()).isCloseTo(82.5, within(0.1)); // Median score
+        assertThat(scoreStats.percentiles().get(0)).isCloseTo(75.75, within(0.1)); // 25th percentile
+        assertThat(scoreStats.percentiles().get(2)).isCloseTo(89.5, within(0.1)); // 75th percentile
+
+        DataAnalysisResponse stored = objectMapper.readValue( // Read back the stored analysis
+                performAndLog(get("/api/analysis/" + response.id())), DataAnalysisResponse.class);
+        assertThat(stored.percentileMode()).isEqualTo(PercentileMode.APPROX); // Mode is persisted
+    }
+
+    @Test // Test method annotation
+    void shouldAnalyzeDuplicateContentAgainForOtherPercentileOptions(
+            @Value("classpath:test-data/numeric-stats.csv") Resource numericCsv // Load test CSV
+    ) throws Exception {
+        String csvData = numericCsv.getContentAsString(UTF_8); // Read CSV content
+
+        DataAnalysisResponse exact = ingest(csvData, "exact", "0.01"); // Exact percentiles first
+        DataAnalysisResponse approx = ingest(csvData, "approx", "0.01"); // Same content, approx percentiles
+        DataAnalysisResponse coarser = ingest(csvData, "approx", "0.05"); // Same content, other accuracy
+
+        assertThat(approx.alreadyExists()).isFalse(); // Not matched with the exact analysis
+        assertThat(approx.id()).isNotEqualTo(exact.id()); // Stored on its own
+        assertThat(approx.percentileMode()).isEqualTo(PercentileMode.APPROX); // Reports what was requested
+        assertThat(coarser.alreadyExists()).isFalse(); // Not matched with another accuracy
+        assertThat(coarser.percentileAccuracy()).isEqualTo(0.05); // Reports what was requested
+
+        DataAnalysisResponse repeated = ingest(csvData, "approx", "0.01"); // Same content and options again
+        assertThat(repeated.alreadyExists()).isTrue(); // Matched this time
+        assertThat(repeated.id()).isEqualTo(approx.id()); // With the analysis profiled the same way
+
+        contentHashIndex.clear(); // Forget cached responses so the database is queried
+        DataAnalysisResponse reloaded = ingest(csvData, "exact", "0.01"); // Exact again
+        assertThat(reloaded.alreadyExists()).isTrue(); // Matched from the database
+        assertThat(reloaded.id()).isEqualTo(exact.id()); // With the exact analysis
+    }
+
+    private DataAnalysisResponse ingest(String csvData, String percentiles, String accuracy) throws Exception {
+        String responseBody = performAndLog(post("/api/analysis/ingestCsv") // POST to ingest endpoint
+                .param("percentiles", percentiles) // Requested percentile mode
+                .param("accuracy", accuracy) // Requested rank error
+                .contentType(TEXT_PLAIN) // Set content type
+                .content(csvData)); // Set request body
+        return objectMapper.readValue(responseBody, DataAnalysisResponse.class); // Parse response
+    }
 }
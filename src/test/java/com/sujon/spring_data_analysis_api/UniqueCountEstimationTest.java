@@ -0,0 +1,57 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.model.UniqueCountMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Integration tests for the switch from exact to estimated unique counts,
+ * run with a low exact limit so a small CSV crosses it.
+ */
+@SpringBootTest(properties = "analysis.unique-count.exact-limit=100")
+class UniqueCountEstimationTest extends AnalysisApiTestSupport {
+
+        private static ColumnStatistics column(DataAnalysisResponse response, String name) {
+                return response.columnStatistics().stream()
+                                .filter(s -> s.columnName().equals(name))
+                                .findFirst().orElseThrow();
+        }
+
+        @Test
+        void shouldEstimateUniqueCountPastExactLimit() throws Exception {
+                StringBuilder csv = new StringBuilder("id,category\n");
+                for (int i = 0; i < 5000; i++) {
+                        csv.append("user-").append(i).append(",c").append(i % 10).append('\n');
+                }
+
+                DataAnalysisResponse response = ingest(csv.toString());
+
+                ColumnStatistics id = column(response, "id");
+                assertThat(id.uniqueCountMode()).isEqualTo(UniqueCountMode.APPROX);
+                assertThat((double) id.uniqueCount()).isCloseTo(5000, within(5000 * 0.03));
+
+                ColumnStatistics category = column(response, "category");
+                assertThat(category.uniqueCountMode()).isEqualTo(UniqueCountMode.EXACT);
+                assertThat(category.uniqueCount()).isEqualTo(10);
+        }
+
+        @Test
+        void shouldPersistUniqueCountMode() throws Exception {
+                StringBuilder csv = new StringBuilder("id\n");
+                for (int i = 0; i < 500; i++) {
+                        csv.append(i * 7919).append('\n');
+                }
+
+                DataAnalysisResponse response = ingest(csv.toString());
+
+                DataAnalysisResponse stored = read(response.id());
+
+                assertThat(column(stored, "id").uniqueCountMode()).isEqualTo(UniqueCountMode.APPROX);
+                assertThat(column(stored, "id").uniqueCount()).isEqualTo(column(response, "id").uniqueCount());
+        }
+}
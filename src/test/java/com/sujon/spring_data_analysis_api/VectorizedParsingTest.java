@@ -0,0 +1,95 @@
+package com.sujon.spring_data_analysis_api;
+
+import com.sujon.spring_data_analysis_api.controller.response.DataAnalysisResponse;
+import com.sujon.spring_data_analysis_api.model.ColumnStatistics;
+import com.sujon.spring_data_analysis_api.service.csv.CsvTokenizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the vectorized tokenizer. The {@code test} task adds the
+ * {@code jdk.incubator.vector} module, and {@code vectorFallbackTest} runs them again
+ * without it, where the tokenizer falls back to its scalar loop.
+ */
+@SpringBootTest(properties = "analysis.parser.vectorized=true")
+class VectorizedParsingTest extends AnalysisApiTestSupport {
+
+        private static final int ROWS = 500;
+
+        @Test
+        void shouldRunOnTheVectorBackend() {
+                assumeTrue(CsvTokenizer.vectorSupported(), "jdk.incubator.vector is not available");
+
+                assertThat(new CsvTokenizer(new StringReader("id\n1\n"), true).isVectorized()).isTrue();
+        }
+
+        @Test
+        void shouldFallBackToTheScalarLoopWithoutTheVectorBackend() throws Exception {
+                assumeFalse(CsvTokenizer.vectorSupported(), "jdk.incubator.vector is available");
+
+                assertThat(new CsvTokenizer(new StringReader("id\n1\n"), true).isVectorized()).isFalse();
+                DataAnalysisResponse response = analyze("/api/analysis/ingestCsv", "id,name\n1,a\n2,b\n");
+                assertThat(response.numberOfRows()).isEqualTo(2);
+                assertThat(response.columnStatistics().get(0).isNumeric()).isTrue();
+        }
+
+        @Test
+        void shouldSplitLongCellsAtEveryDelimiter() throws Exception {
+                // Cells longer than a 64 character block, separated by plain and non-ASCII characters
+                StringBuilder csv = new StringBuilder("id,description,amount\n");
+                for (int r = 0; r < ROWS; r++) {
+                        csv.append(r).append(',')
+                                        .append("x".repeat(r % 150 + 1)).append(r % 7 == 0 ? "été " : "-")
+                                        .append(r % 3).append(',')
+                                        .append(r * 1000).append(r % 50 == 0 ? "\r\n\n" : "\n");
+                }
+
+                for (String endpoint : new String[]{"/api/analysis/ingestCsv", "/api/analysis/ingestCsv/stream"}) {
+                        contentHashIndex.clear();
+                        dataAnalysisRepository.deleteAll();
+                        DataAnalysisResponse response = analyze(endpoint, csv.toString());
+
+                        assertThat(response.numberOfRows()).isEqualTo(ROWS);
+                        List<ColumnStatistics> statistics = response.columnStatistics();
+                        assertThat(statistics.get(0).uniqueCount()).isEqualTo(ROWS);
+                        assertThat(statistics.get(1).isNumeric()).isFalse();
+                        assertThat(statistics.get(1).nullCount()).isZero();
+                        assertThat(statistics.get(2).isNumeric()).isTrue();
+                        assertThat(statistics.get(2).max()).isEqualTo((ROWS - 1) * 1000.0);
+                        assertThat(statistics.get(2).mean()).isEqualTo((ROWS - 1) * 500.0);
+                }
+        }
+
+        @Test
+        void shouldParseQuotedFieldsLikeTheScalarTokenizer(
+                        @Value("classpath:test-data/quoted.csv") Resource quotedCsv) throws Exception {
+                DataAnalysisResponse response = analyze("/api/analysis/ingestCsv", quotedCsv.getContentAsString(UTF_8));
+
+                assertThat(response.numberOfColumns()).isEqualTo(3);
+                assertThat(response.numberOfRows()).isEqualTo(3);
+                assertThat(response.columnStatistics().get(1).columnName()).isEqualTo("comment, free text");
+                assertThat(response.columnStatistics().get(2).mean()).isEqualTo(20.0);
+        }
+
+        private DataAnalysisResponse analyze(String endpoint, String csv) throws Exception {
+                String body = mockMvc.perform(post(endpoint)
+                                .contentType(TEXT_PLAIN)
+                                .content(csv))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, DataAnalysisResponse.class);
+        }
+}
@@ -0,0 +1,50 @@
+package com.sujon.spring_data_analysis_api.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the encoding of stored text, and for rejecting stored bytes whose
+ * header does not match them before anything is allocated for the text.
+ */
+class CompressedTextTest {
+
+        @Test
+        void shouldStoreShortTextAndDeflateRepetitiveText() {
+                byte[] stored = CompressedText.encode("id");
+                byte[] deflated = CompressedText.encode("id,team\n".repeat(100));
+
+                assertThat(stored[0]).isEqualTo(CompressedText.STORED);
+                assertThat(deflated[0]).isEqualTo(CompressedText.DEFLATE);
+                assertThat(CompressedText.decode(stored)).isEqualTo("id");
+                assertThat(CompressedText.decode(deflated)).isEqualTo("id,team\n".repeat(100));
+        }
+
+        @Test
+        void shouldRejectStoredTextWhoseDeclaredLengthDoesNotMatch() {
+                byte[] stored = CompressedText.encode("id");
+                byte[] deflated = CompressedText.encode("id,team\n".repeat(100));
+
+                assertThatThrownBy(() -> CompressedText.decode(withLength(stored, 3)))
+                                .isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> CompressedText.decode(withLength(stored, -1)))
+                                .isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> CompressedText.decode(withLength(deflated, -1)))
+                                .isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> CompressedText.decode(withLength(deflated, Integer.MAX_VALUE)))
+                                .isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> CompressedText.decode(new byte[]{CompressedText.STORED, 0}))
+                                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        // A copy of encoded text with another length in its header
+        private static byte[] withLength(byte[] encoded, int length) {
+                byte[] copy = encoded.clone();
+                ByteBuffer.wrap(copy).putInt(1, length);
+                return copy;
+        }
+}
@@ -0,0 +1,86 @@
+package com.sujon.spring_data_analysis_api.service.csv;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link StructuralIndex} built with the {@code jdk.incubator.vector} API, after the
+ * bitmask approach of simdcsv.
+ * <p>
+ * Each call classifies a block of 64 characters with a few vector compares and
+ * packs the result into a {@code long} with one bit per structural character.
+ * Later calls inside the same block only shift the mask and count trailing zeros,
+ * so a record is classified once however many cells it has. Characters are
+ * compared as signed 16-bit lanes: everything from U+8000 up is negative
+ * and falls below {@code '-'}, which keeps the test to two compares. Ranges shorter
+ * than a block are scanned one character at a time.
+ * <p>
+ * This is the only class compiled against the incubating module, in its own source set,
+ * and {@link StructuralIndex} loads it by name.
+ */
+final class VectorStructuralIndex implements StructuralIndex {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int BLOCK = Long.SIZE;
+
+    private char[] blockBuffer;
+    private int blockStart;
+    private long structural;
+
+    /**
+     * @return true if the preferred species is at least 128 bits wide; narrower ones
+     * fall back to a slow emulation
+     */
+    static boolean isUsable() {
+        return SPECIES.length() >= 8 && BLOCK % SPECIES.length() == 0;
+    }
+
+    @Override
+    public int next(char[] buffer, int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (buffer != blockBuffer || i < blockStart || i >= blockStart + BLOCK) {
+                if (to - i < BLOCK) {
+                    return scan(buffer, i, to);
+                }
+                classify(buffer, i);
+            }
+            long mask = structural >>> (i - blockStart);
+            if (mask != 0) {
+                return Math.min(i + Long.numberOfTrailingZeros(mask), to);
+            }
+            i = blockStart + BLOCK;
+        }
+        return to;
+    }
+
+    @Override
+    public void invalidate() {
+        blockBuffer = null;
+    }
+
+    private void classify(char[] buffer, int start) {
+        long mask = 0;
+        for (int lane = 0; lane < BLOCK; lane += SPECIES.length()) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, buffer, start + lane);
+            long bits = v.compare(VectorOperators.LT, (short) '-')
+                    .or(v.compare(VectorOperators.GE, (short) '\u0085'))
+                    .toLong();
+            mask |= bits << lane;
+        }
+        blockBuffer = buffer;
+        blockStart = start;
+        structural = mask;
+    }
+
+    private static int scan(char[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = buffer[i];
+            if (c <= ',' || c >= '\u0085') {
+                return i;
+            }
+        }
+        return to;
+    }
+}